@@ -0,0 +1,61 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Matches artifacts against the ignored artifacts and the reference template patterns, which is
+ * done for each dependency by the "create" and "third-party-folder" goals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArtifactMatcherBenchmark {
+
+  @Param({"10", "100"})
+  private int patterns;
+
+  private ArtifactMatcher matcher;
+  private final List<String> artifacts = new ArrayList<>();
+
+  @Setup
+  public void setup() {
+    matcher = new ArtifactMatcher();
+    for (int i = 0; i < patterns; i++) {
+      // Mix literal prefixes and real regular expressions like in typical configurations
+      matcher.addIgnored("org\\.ignored" + i + ":.*");
+      matcher.addTemplate("com\\.example" + i + ":.*", new File("template" + i + ".yml"));
+      matcher.addTemplate(".*:module" + i + ":.*", new File("module" + i + ".yml"));
+      matcher.addTemplate("org\\.group" + i + ":[a-z]+:.*", new File("group" + i + ".yml"));
+    }
+    for (int i = 0; i < 1000; i++) {
+      artifacts.add("com.example" + (i % (2 * patterns)) + ":module" + i + ":jar:1.0.0:compile");
+    }
+  }
+
+  @Benchmark
+  public void match(Blackhole blackhole) {
+    for (String artifact : artifacts) {
+      ArtifactMatcher.Match match = matcher.match(artifact);
+      blackhole.consume(match.isIgnored());
+      blackhole.consume(match.getTemplate());
+    }
+  }
+}
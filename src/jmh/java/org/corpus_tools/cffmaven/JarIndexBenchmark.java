@@ -0,0 +1,75 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads the "pom.properties" and finds the license files in a large synthetic JAR file, like it
+ * is done for each dependency that is not in the JAR index cache yet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JarIndexBenchmark {
+
+  @Param({"1000", "20000"})
+  private int entries;
+
+  private File jar;
+
+  @Setup
+  public void setup() throws IOException {
+    jar = File.createTempFile("cff-benchmark", ".jar");
+    byte[] classContent = new byte[2048];
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+      addEntry(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes(
+          StandardCharsets.UTF_8));
+      addEntry(out, "META-INF/maven/org.example/example/pom.properties",
+          "groupId=org.example\nartifactId=example\nversion=1.0.0\n"
+              .getBytes(StandardCharsets.UTF_8));
+      addEntry(out, "META-INF/LICENSE.txt", new byte[11358]);
+      addEntry(out, "META-INF/NOTICE.txt", new byte[500]);
+      for (int i = 0; i < entries; i++) {
+        addEntry(out, "org/example/package" + (i / 100) + "/Class" + i + ".class",
+            classContent);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    jar.delete();
+  }
+
+  @Benchmark
+  public JarIndex createIndex() throws IOException {
+    return JarInspector.createIndex(jar);
+  }
+
+  private static void addEntry(ZipOutputStream out, String name, byte[] content)
+      throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content);
+    out.closeEntry();
+  }
+}
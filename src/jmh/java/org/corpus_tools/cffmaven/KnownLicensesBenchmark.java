@@ -0,0 +1,37 @@
+package org.corpus_tools.cffmaven;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses license names like they appear in the Maven metadata of dependencies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnownLicensesBenchmark {
+
+  private static final List<String> NAMES = Arrays.asList("Apache License, Version 2.0",
+      "The Apache Software License, Version 2.0", "MIT license", "Eclipse Public License 1.0",
+      "GPL2 w/ CPE", "BSD-3-Clause", "Some unknown license");
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (String name : NAMES) {
+      Optional<String> result = KnownLicenses.parse(name);
+      blackhole.consume(result);
+    }
+  }
+}
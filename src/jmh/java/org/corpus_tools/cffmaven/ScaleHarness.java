@@ -0,0 +1,349 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Runs the "create" and "third-party-folder" goals end-to-end on synthetic projects with a large
+ * number of dependencies. The dependencies are generated in a local Maven repository and are a
+ * mix of Maven artifacts with different licenses and developers and P2 artifacts without any
+ * Maven metadata. Clearly Defined and the license text downloads are replaced by a mock server
+ * with a configurable latency.
+ *
+ * <p>
+ * The plugin has to be installed in the local repository before, e.g. with
+ * {@code mvn install -DskipTests}. Arguments are the plugin version, the working directory, the
+ * comma-separated numbers of artifacts and the latency of the mock server in milliseconds.
+ * </p>
+ */
+public class ScaleHarness {
+
+  private static final String[] GOALS = {"create", "third-party-folder"};
+
+  private static final String[][] LICENSES = {
+      {"Apache License, Version 2.0", "https://www.apache.org/licenses/LICENSE-2.0.txt"},
+      {"MIT License", "https://opensource.org/licenses/MIT"},
+      {"Eclipse Public License 1.0", "https://www.eclipse.org/legal/epl-v10.html"},
+      // Unknown license names result in a Clearly Defined query and a fallback to the URL
+      {"Custom License", null}, {null, null}};
+
+  private static final String[] NAMES = {"Ada", "Grace", "Alan", "Barbara", "Donald", "Edsger",
+      "Frances", "John", "Margaret", "Niklaus", "Ken", "Radia"};
+
+  private final String pluginVersion;
+  private final File workDir;
+  private final long latency;
+  private final File mavenRepository;
+
+  private final Map<String, AtomicLong> requests = new ConcurrentSkipListMap<>();
+
+  private ScaleHarness(String pluginVersion, File workDir, long latency, File mavenRepository) {
+    this.pluginVersion = pluginVersion;
+    this.workDir = workDir;
+    this.latency = latency;
+    this.mavenRepository = mavenRepository;
+  }
+
+  /**
+   * Run the harness.
+   *
+   * @param args Plugin version, working directory, numbers of artifacts, latency in milliseconds
+   *        and optionally the local Maven repository the plugin is installed in.
+   * @throws Exception If generating the project or running Maven failed.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.err.println("Usage: ScaleHarness <plugin version> <working directory> "
+          + "<sizes, e.g. 100,1000,5000> <latency in ms> [<local Maven repository>]");
+      System.exit(1);
+    }
+    File mavenRepository = args.length > 4 ? new File(args[4])
+        : new File(System.getProperty("user.home"), ".m2/repository");
+    ScaleHarness harness = new ScaleHarness(args[0], new File(args[1]), Long.parseLong(args[3]),
+        mavenRepository);
+
+    List<String> report = new ArrayList<>();
+    report.add(String.format(Locale.ROOT, "%8s %-20s %10s %14s %12s %10s %14s", "artifacts",
+        "goal", "time (ms)", "artifacts/s", "peak heap", "HTTP calls", "mock requests"));
+    for (String size : args[2].split(",")) {
+      report.addAll(harness.run(Integer.parseInt(size.trim())));
+    }
+    for (String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  private List<String> run(int size) throws IOException, InterruptedException {
+    File dir = new File(workDir, Integer.toString(size));
+    deleteRecursively(dir);
+    File repo = new File(dir, "repo");
+    File project = new File(dir, "project");
+    File home = new File(dir, "home");
+    if (!project.mkdirs() || !home.mkdirs()) {
+      throw new IOException("Could not create folder " + dir.getPath());
+    }
+
+    List<String> result = new ArrayList<>();
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new MockClearlyDefined());
+    server.start();
+    try {
+      String dependencies = generateRepository(repo, size, server.url("/").toString());
+      writeProject(project, dependencies, server.url("/").toString());
+      for (String goal : GOALS) {
+        requests.clear();
+        File metricsFile = new File(project, "target/metrics-" + goal + ".json");
+        long start = System.nanoTime();
+        runMaven(project, repo, home, goal, metricsFile);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        JSONObject metrics = new JSONObject(
+            new String(Files.readAllBytes(metricsFile.toPath()), StandardCharsets.UTF_8));
+        JSONObject counters = metrics.getJSONObject("counters");
+        result.add(String.format(Locale.ROOT, "%8d %-20s %10d %14.1f %9d MB %10d %14s", size,
+            goal, millis, size * 1000.0 / Math.max(1, millis),
+            metrics.getLong("peakHeapBytes") / (1024 * 1024), counters.optLong("http.calls"),
+            requests.toString()));
+      }
+    } finally {
+      server.shutdown();
+    }
+    return result;
+  }
+
+  /**
+   * Generate a random but reproducible set of artifacts and return the dependency declarations
+   * for them.
+   */
+  private String generateRepository(File repo, int size, String serverUrl) throws IOException {
+    Random random = new Random(size);
+    StringBuilder dependencies = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      String groupId;
+      String artifactId;
+      String version;
+      String[] license = LICENSES[random.nextInt(LICENSES.length)];
+      boolean p2 = random.nextInt(5) == 0;
+      if (p2) {
+        groupId = "p2.eclipse.plugin";
+        artifactId = "org.example.bundle" + i + ".core";
+        version = "1." + random.nextInt(10) + ".0.v20230101";
+      } else {
+        groupId = "org.example.group" + random.nextInt(Math.max(1, size / 20));
+        // The mock server does not know artifacts with a custom license
+        artifactId = (license[0] != null && license[1] == null ? "custom" : "artifact") + i;
+        version = "1." + random.nextInt(10) + "." + random.nextInt(10);
+      }
+      File folder = new File(repo,
+          groupId.replace('.', '/') + "/" + artifactId + "/" + version);
+      if (!folder.mkdirs()) {
+        throw new IOException("Could not create folder " + folder.getPath());
+      }
+      String base = artifactId + "-" + version;
+      if (p2) {
+        writeString(new File(folder, base + ".pom"), pom(groupId, artifactId, version, ""));
+        writeJar(new File(folder, base + ".jar"), random, false);
+      } else {
+        StringBuilder metadata = new StringBuilder();
+        metadata.append("  <name>Example artifact ").append(i).append("</name>\n");
+        if (license[0] != null) {
+          String url = license[1] == null ? serverUrl + "licenses/custom-" + i + ".txt"
+              : license[1];
+          metadata.append("  <licenses><license><name>").append(license[0])
+              .append("</name><url>").append(url).append("</url></license></licenses>\n");
+        }
+        int developers = random.nextInt(4);
+        if (developers > 0) {
+          metadata.append("  <developers>\n");
+          for (int d = 0; d < developers; d++) {
+            String name = NAMES[random.nextInt(NAMES.length)];
+            metadata.append("    <developer><name>").append(name).append(' ').append(d)
+                .append("</name><email>").append(name.toLowerCase(Locale.ROOT))
+                .append("@example.com</email></developer>\n");
+          }
+          metadata.append("  </developers>\n");
+        }
+        writeString(new File(folder, base + ".pom"),
+            pom(groupId, artifactId, version, metadata.toString()));
+        writeJar(new File(folder, base + ".jar"), random, random.nextBoolean());
+      }
+      dependencies.append("    <dependency><groupId>").append(groupId)
+          .append("</groupId><artifactId>").append(artifactId).append("</artifactId><version>")
+          .append(version).append("</version></dependency>\n");
+    }
+    return dependencies.toString();
+  }
+
+  private static String pom(String groupId, String artifactId, String version, String metadata) {
+    return "<project>\n  <modelVersion>4.0.0</modelVersion>\n  <groupId>" + groupId
+        + "</groupId>\n  <artifactId>" + artifactId + "</artifactId>\n  <version>" + version
+        + "</version>\n" + metadata + "</project>\n";
+  }
+
+  private static void writeJar(File file, Random random, boolean withLicenseFile)
+      throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+      int classes = 10 + random.nextInt(200);
+      byte[] content = new byte[256];
+      for (int i = 0; i < classes; i++) {
+        out.putNextEntry(new ZipEntry("org/example/Class" + i + ".class"));
+        random.nextBytes(content);
+        out.write(content);
+        out.closeEntry();
+      }
+      if (withLicenseFile) {
+        out.putNextEntry(new ZipEntry("META-INF/LICENSE.txt"));
+        out.write("Bundled license text".getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+      }
+    }
+  }
+
+  private void writeProject(File project, String dependencies, String serverUrl)
+      throws IOException {
+    String pom = "<project>\n  <modelVersion>4.0.0</modelVersion>\n"
+        + "  <groupId>org.example</groupId>\n  <artifactId>scale-test</artifactId>\n"
+        + "  <version>1.0.0</version>\n  <name>Scale test</name>\n"
+        + "  <dependencies>\n" + dependencies + "  </dependencies>\n"
+        + "  <build><plugins><plugin>\n"
+        + "    <groupId>org.corpus-tools</groupId>\n"
+        + "    <artifactId>cff-maven-plugin</artifactId>\n"
+        + "    <version>" + pluginVersion + "</version>\n"
+        + "    <configuration>\n"
+        + "      <dateReleased>2000-01-01</dateReleased>\n"
+        + "      <offline>false</offline>\n"
+        + "      <clearlyDefinedUrl>" + serverUrl + "</clearlyDefinedUrl>\n"
+        + "      <spdxLicenseUrl>" + serverUrl + "spdx/</spdxLicenseUrl>\n"
+        + "      <metricsReport>${cff.metrics}</metricsReport>\n"
+        + "    </configuration>\n"
+        + "  </plugin></plugins></build>\n</project>\n";
+    writeString(new File(project, "pom.xml"), pom);
+  }
+
+  private void runMaven(File project, File repo, File home, String goal, File metricsFile)
+      throws IOException, InterruptedException {
+    File log = new File(project, "target/" + goal + ".log");
+    if (!log.getParentFile().isDirectory() && !log.getParentFile().mkdirs()) {
+      throw new IOException("Could not create folder " + log.getParent());
+    }
+    // Each goal runs in its own JVM, so the reported peak heap usage only covers this goal
+    ProcessBuilder builder = new ProcessBuilder(Arrays.asList("mvn", "-B", "-o",
+        "-Dmaven.repo.local=" + repo.getAbsolutePath(),
+        "-Dmaven.repo.local.tail=" + mavenRepository.getAbsolutePath(),
+        "-Dcff.metrics=" + metricsFile.getAbsolutePath(),
+        "org.corpus-tools:cff-maven-plugin:" + pluginVersion + ":" + goal));
+    builder.directory(project);
+    // Use a separate home folder, so each run starts with an empty persistent cache
+    String mavenOpts = System.getenv("MAVEN_OPTS");
+    builder.environment().put("MAVEN_OPTS", (mavenOpts == null ? "" : mavenOpts + " ")
+        + "-Duser.home=" + home.getAbsolutePath());
+    builder.redirectErrorStream(true);
+    builder.redirectOutput(log);
+    int exitCode = builder.start().waitFor();
+    if (exitCode != 0) {
+      throw new IOException("Maven failed with exit code " + exitCode + ", see " + log.getPath());
+    }
+  }
+
+  /**
+   * Answers like Clearly Defined for searches and definitions: every P2 artifact and every Maven
+   * artifact without a custom license has the Apache 2.0 license. License texts are generated.
+   */
+  private class MockClearlyDefined extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      String path = request.getRequestUrl().encodedPath();
+      String pattern = request.getRequestUrl().queryParameter("pattern");
+      MockResponse response;
+      if (path.startsWith("/spdx/") || path.startsWith("/licenses/")) {
+        count("license-text");
+        response = new MockResponse().setBody("License text of " + path);
+      } else if ("/definitions".equals(path) && pattern != null) {
+        count("search");
+        JSONArray ids = new JSONArray();
+        if (pattern.split("/").length == 3) {
+          if (!pattern.contains("/custom")) {
+            ids.put("maven/mavencentral/" + pattern);
+          }
+        } else {
+          ids.put("p2/eclipse/-/" + pattern);
+        }
+        response = json(ids.toString());
+      } else if ("/definitions".equals(path)) {
+        count("batch");
+        JSONArray ids = new JSONArray(request.getBody().readUtf8());
+        JSONObject definitions = new JSONObject();
+        for (int i = 0; i < ids.length(); i++) {
+          definitions.put(ids.getString(i), definition(ids.getString(i)));
+        }
+        response = json(definitions.toString());
+      } else if (path.startsWith("/definitions/")) {
+        count("definition");
+        List<String> segments = request.getRequestUrl().pathSegments();
+        response = json(
+            definition(String.join("/", segments.subList(1, segments.size()))).toString());
+      } else {
+        count("unknown");
+        response = new MockResponse().setResponseCode(404);
+      }
+      return response.setHeadersDelay(latency, TimeUnit.MILLISECONDS);
+    }
+
+    private void count(String kind) {
+      requests.computeIfAbsent(kind, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private MockResponse json(String body) {
+      return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private JSONObject definition(String id) {
+      String[] coordinates = id.split("/");
+      JSONObject attribution = new JSONObject().put("parties",
+          new JSONArray().put("Party of " + coordinates[coordinates.length - 2]));
+      JSONObject licensed = new JSONObject().put("declared", KnownLicenses.SPDX_APACHE20)
+          .put("facets", new JSONObject().put("core",
+              new JSONObject().put("attribution", attribution)));
+      return new JSONObject().put("coordinates", id).put("licensed", licensed).put("scores",
+          new JSONObject().put("effective", 80));
+    }
+  }
+
+  private static void writeString(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void deleteRecursively(File dir) throws IOException {
+    if (dir.exists()) {
+      try (Stream<Path> paths = Files.walk(dir.toPath())) {
+        for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+          Files.delete(p);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.ProjectBuildingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+/**
+ * Creates a reference from a Handlebars template, including parsing the generated YAML.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateReferenceBenchmark {
+
+  private static final String TEMPLATE = "type: software\n"
+      + "title: \"{{artifactId}}\"\n"
+      + "abbreviation: \"{{groupId}}:{{artifactId}}\"\n"
+      + "version: \"{{version}}\"\n"
+      + "license: Apache-2.0\n"
+      + "authors:\n"
+      + "  - name: \"The {{artifactId}} Team\"\n";
+
+  private File folder;
+  private File template;
+  private CreateMojo mojo;
+  private Artifact artifact;
+  private Load yamlLoad;
+
+  @Setup
+  public void setup() throws IOException {
+    folder = Files.createTempDirectory("cff-benchmark").toFile();
+    template = new File(folder, "template.yml");
+    Files.write(template.toPath(), TEMPLATE.getBytes(StandardCharsets.UTF_8));
+    mojo = new CreateMojo();
+    artifact = new DefaultArtifact("org.example", "example", "1.0.0", "compile", "jar", null,
+        new DefaultArtifactHandler("jar"));
+    yamlLoad = new Load(LoadSettings.builder().build());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(folder);
+  }
+
+  @Benchmark
+  public Map<String, Object> createReferenceFromTemplate()
+      throws ProjectBuildingException, IOException {
+    return mojo.createReferenceFromTemplate(artifact, null, template, yamlLoad);
+  }
+}
@@ -0,0 +1,91 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts a CFF file with many references to YAML, either as string or written reference by
+ * reference to a file, like it is done at the end of the "create" goal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YamlDumpBenchmark {
+
+  @Param({"1000", "5000"})
+  private int references;
+
+  private Map<String, Object> cff;
+  private Map<String, Object> header;
+  private List<Map<String, Object>> refs;
+  private File output;
+
+  @Setup
+  public void setup() throws IOException {
+    cff = new LinkedHashMap<>();
+    cff.put("cff-version", "1.2.0");
+    cff.put("type", "software");
+    cff.put("message", "If you use this software, please cite it as below.");
+    cff.put("title", "Benchmark");
+    cff.put("version", "1.0.0");
+    header = new LinkedHashMap<>(cff);
+    refs = new ArrayList<>();
+    for (int i = 0; i < references; i++) {
+      Map<String, Object> ref = new LinkedHashMap<>();
+      ref.put("type", "software");
+      ref.put("title", "Example Library " + i);
+      ref.put("abbreviation", "org.example:example" + i);
+      ref.put("version", "1.0." + i);
+      ref.put("license", "Apache-2.0");
+      Map<String, Object> author = new LinkedHashMap<>();
+      author.put("name", "The Example Library " + i + " Team");
+      ref.put("authors", Arrays.asList(author));
+      ref.put("repository-code", "https://github.com/example/example" + i);
+      refs.add(ref);
+    }
+    cff.put("references", refs);
+    output = File.createTempFile("benchmark", ".cff");
+  }
+
+  @TearDown
+  public void tearDown() {
+    output.delete();
+  }
+
+  @Benchmark
+  public String toYaml() {
+    return CreateMojo.toYaml(cff);
+  }
+
+  @Benchmark
+  public File write() throws IOException {
+    try (CffWriter writer = new CffWriter(output, header, CreateMojo.REFERENCES)) {
+      for (Map<String, Object> ref : refs) {
+        writer.writeReference(ref);
+      }
+      writer.commit();
+    }
+    return output;
+  }
+}
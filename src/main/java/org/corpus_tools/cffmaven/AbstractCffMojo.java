@@ -1,16 +1,18 @@
-
 package org.corpus_tools.cffmaven;
 
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.FileTemplateLoader;
 import com.github.jknack.handlebars.io.TemplateLoader;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -18,27 +20,38 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
+import java.util.stream.Collectors;
 import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.execution.MavenSession;
-import org.apache.maven.model.Developer;
-import org.apache.maven.model.License;
+import org.apache.maven.model.Profile;
 import org.apache.maven.model.Scm;
 import org.apache.maven.model.building.ModelBuildingRequest;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.DefaultProjectBuildingRequest;
@@ -46,17 +59,17 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.project.ProjectBuildingRequest;
-import org.apache.maven.project.ProjectBuildingResult;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
 import org.ehcache.Cache;
-import org.ehcache.PersistentCacheManager;
+import org.ehcache.StateTransitionException;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.CacheManagerBuilder;
-import org.ehcache.config.builders.CacheManagerConfiguration;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
 import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.snakeyaml.engine.v2.api.Load;
 import org.snakeyaml.engine.v2.api.LoadSettings;
 
@@ -71,8 +84,6 @@ public abstract class AbstractCffMojo extends AbstractMojo {
   protected static final Pattern P2_PLUGIN_GROUP_ID = Pattern.compile("p2.eclipse[.\\-]plugin");
   protected static final Pattern MINOR_VERSION_HEURISTIC = Pattern.compile("^(\\d\\.\\d)\\..*");
   protected static final Pattern ARTIFACTID_HEURISTIC_SUFFIX = Pattern.compile("(.*)(\\.)([^.]+)$");
-  protected static final HttpUrl DEFINITIONS_ENDPOINT =
-      HttpUrl.parse("https://api.clearlydefined.io/definitions");
 
   protected static final String TITLE = "title";
   protected static final String VERSION = "version";
@@ -85,6 +96,26 @@ public abstract class AbstractCffMojo extends AbstractMojo {
   private boolean p2IgnorePatchLevel;
   @Parameter(defaultValue = "false")
   private boolean p2ReconstructGroupId;
+  @Parameter(defaultValue = "https://api.clearlydefined.io")
+  private String clearlyDefinedUrl;
+  @Parameter(defaultValue = "0")
+  private int clearlyDefinedBatchSize;
+  @Parameter(defaultValue = "720")
+  private long remoteLicenseCacheHours;
+  @Parameter(defaultValue = "24")
+  private long remoteLicenseNotFoundCacheHours;
+  @Parameter(defaultValue = "true")
+  private boolean reactorCache;
+  @Parameter(defaultValue = "false")
+  protected boolean offline;
+  @Parameter
+  protected File licenseDatabase;
+  @Parameter(defaultValue = "10")
+  private int slowestArtifacts;
+  @Parameter
+  private File metricsReport;
+  @Parameter(defaultValue = "false")
+  private boolean fastPomReader;
 
 
   @Parameter(defaultValue = "${project}", readonly = true)
@@ -94,11 +125,16 @@ public abstract class AbstractCffMojo extends AbstractMojo {
   @Parameter(defaultValue = "${session}", readonly = true)
   private MavenSession mavenSession;
 
+  @Parameter(defaultValue = "${plugin}", readonly = true)
+  private PluginDescriptor pluginDescriptor;
+
   @Parameter(defaultValue = "${project.remoteArtifactRepositories}", readonly = true)
   protected List<ArtifactRepository> remoteRepositories;
 
   @Component
   private ProjectBuilder mavenProjectBuilder;
+  @Component
+  private SharedCacheManager sharedCacheManager;
   protected final OkHttpClient http =
       new OkHttpClient.Builder().readTimeout(30, TimeUnit.SECONDS).build();
   private final TemplateLoader handlebarsTemplateLoader = new FileTemplateLoader("", "");
@@ -114,31 +150,279 @@ public abstract class AbstractCffMojo extends AbstractMojo {
   @Parameter
   private List<TemplateConfiguration> referenceTemplates;
 
-  private List<Pattern> ignoredPatterns;
 
   private Cache<String, RemoteLicenseInformation> remoteLicenseCache;
-  private PersistentCacheManager cacheManager;
-  private Map<Pattern, File> templatePatterns;
+  private Cache<String, JarIndex> jarIndexCache;
+  private Cache<String, PomMetadata> persistentPomMetadataCache;
+  private Cache<String, String> downloadedLicensesCache;
+  private Optional<LicenseDatabase> loadedLicenseDatabase;
+  private final Metrics metrics = new Metrics();
+  private HttpMetrics httpMetrics;
+  private OkHttpClient instrumentedHttp;
+  private final List<Dispatcher> dispatchers = new ArrayList<>();
+  private ClearlyDefinedClient clearlyDefined;
+  private ReactorCache sharedResults;
+  private Optional<String> referenceConfiguration;
+  private SharedCacheManager cacheManager;
+  private ArtifactMatcher artifactMatcher;
+  /**
+   * The matches by the string representation of the artifact, which is what the patterns are
+   * matched against. Artifacts that are equal can still have a different scope.
+   */
+  private final Map<String, ArtifactMatcher.Match> artifactMatches = new ConcurrentHashMap<>();
+  private JarInspector jarInspector;
+  private FastPomReader pomReader;
+  private final Map<File, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Object>> referenceCache = new ConcurrentHashMap<>();
+  private final Map<String, PomMetadata> pomMetadataCache = new ConcurrentHashMap<>();
+
+  private final ThreadLocal<Load> yamlLoad =
+      ThreadLocal.withInitial(() -> new Load(LoadSettings.builder().build()));
+
+  private final ThreadLocal<ResolvedReference> currentReference = new ThreadLocal<>();
+
+  private static class ResolvedReference {
+    private BufferedLog log;
+    private Map<String, Object> reference;
+    private ProjectBuildingException error;
+    /**
+     * If not null, the ClearlyDefined definition IDs for this artifact are collected here instead
+     * of fetching the definitions.
+     */
+    private Set<String> candidateIds;
+  }
+
+  /**
+   * Stops creating a reference that needs definitions from ClearlyDefined, which are fetched in
+   * batches before the reference is created.
+   */
+  private static class DefinitionsPending extends RuntimeException {
+    private static final long serialVersionUID = -4727843371398307322L;
+
+    DefinitionsPending() {
+      super(null, null, false, false);
+    }
+  }
 
-  private Load yamlLoad = new Load(LoadSettings.builder().build());
+  private static class CompiledTemplate {
+    private long lastModified;
+    private Template template;
+    private int compilations;
+  }
 
+  @Override
+  public Log getLog() {
+    ResolvedReference current = currentReference.get();
+    if (current == null) {
+      return super.getLog();
+    } else {
+      return current.log;
+    }
+  }
+
+  /**
+   * Create the references for all given artifacts and pass them to the consumer in the order of the
+   * artifacts.
+   * 
+   * <p>
+   * When more than one thread is used, the references are created in parallel. The log messages
+   * of each artifact are buffered and replayed in the order of the artifacts, so the output is the
+   * same as when creating the references one after another.
+   * </p>
+   * 
+   * <p>
+   * If batch requests to ClearlyDefined are enabled, the creation of a reference stops when it
+   * needs a definition and only the IDs of the needed definitions are collected. These definitions
+   * are then fetched in batches and the pending references are created.
+   * </p>
+   * 
+   * @param artifacts The artifacts to create the references for.
+   * @param projectBuildingRequest The request used to resolve Maven artifacts.
+   * @param threads The maximum number of threads to use.
+   * @param consumer Called for each artifact for which the reference could be created.
+   * @throws MojoExecutionException If resolving the references was interrupted or failed.
+   */
+  protected void createReferences(List<Artifact> artifacts,
+      ProjectBuildingRequest projectBuildingRequest, int threads,
+      BiConsumer<Artifact, Map<String, Object>> consumer) throws MojoExecutionException {
+    boolean batchRequests = clearlyDefinedBatchSize > 0;
+    if (!batchRequests && (threads <= 1 || artifacts.size() <= 1)) {
+      for (Artifact artifact : artifacts) {
+        try {
+          consumer.accept(artifact, createReference(artifact, projectBuildingRequest));
+        } catch (ProjectBuildingException ex) {
+          getLog().error("Can not resolve dependency artifact " + artifact.toString(), ex);
+        }
+      }
+      return;
+    }
+
+    // Initialize the lazily created shared state before any worker thread accesses it
+    getArtifactMatcher();
+    getReferenceConfiguration();
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(threads, artifacts.size())), runnable -> {
+          Thread t = new Thread(runnable, "cff-resolver");
+          t.setDaemon(true);
+          return t;
+        });
+    try {
+      List<ResolvedReference> resolved =
+          createBufferedReferences(executor, artifacts, projectBuildingRequest, batchRequests);
+
+      if (batchRequests) {
+        fetchCandidateDefinitions(executor, artifacts, resolved, projectBuildingRequest);
+      }
+
+      for (int i = 0; i < artifacts.size(); i++) {
+        Artifact artifact = artifacts.get(i);
+        ResolvedReference r = resolved.get(i);
+        r.log.replay(getLog());
+        if (r.error == null) {
+          consumer.accept(artifact, r.reference);
+        } else {
+          getLog().error("Can not resolve dependency artifact " + artifact.toString(), r.error);
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while resolving the dependencies", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new MojoExecutionException("Could not resolve the dependencies", ex.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Fetch all definitions that have been collected while creating the references in batches and
+   * create the references of the artifacts that needed them.
+   */
+  private void fetchCandidateDefinitions(ExecutorService executor, List<Artifact> artifacts,
+      List<ResolvedReference> resolved, ProjectBuildingRequest projectBuildingRequest)
+      throws InterruptedException, ExecutionException {
+    Set<String> candidateIds = new LinkedHashSet<>();
+    List<Integer> pending = new ArrayList<>();
+    for (int i = 0; i < resolved.size(); i++) {
+      if (!resolved.get(i).candidateIds.isEmpty()) {
+        candidateIds.addAll(resolved.get(i).candidateIds);
+        pending.add(i);
+      }
+    }
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    getLog().info("Fetching " + candidateIds.size() + " definitions from clearlydefined.io");
+    try {
+      getClearlyDefined().fetchDefinitions(candidateIds, clearlyDefinedBatchSize).join();
+    } catch (CompletionException ex) {
+      getLog().warn("Fetching the definitions in batches failed, "
+          + "falling back to fetching them one by one.", ex.getCause());
+    }
+
+    List<Artifact> pendingArtifacts =
+        pending.stream().map(artifacts::get).collect(Collectors.toList());
+    List<ResolvedReference> updated =
+        createBufferedReferences(executor, pendingArtifacts, projectBuildingRequest, false);
+    for (int i = 0; i < pending.size(); i++) {
+      resolved.set(pending.get(i), updated.get(i));
+    }
+  }
+
+  private List<ResolvedReference> createBufferedReferences(ExecutorService executor,
+      List<Artifact> artifacts, ProjectBuildingRequest projectBuildingRequest,
+      boolean collectCandidates) throws InterruptedException, ExecutionException {
+    List<Future<ResolvedReference>> futures = new ArrayList<>(artifacts.size());
+    for (Artifact artifact : artifacts) {
+      // Each worker gets its own copy of the (mutable) project building request
+      ProjectBuildingRequest workerRequest =
+          new DefaultProjectBuildingRequest(projectBuildingRequest);
+      futures.add(executor
+          .submit(() -> createBufferedReference(artifact, workerRequest, collectCandidates)));
+    }
+    List<ResolvedReference> result = new ArrayList<>(artifacts.size());
+    for (Future<ResolvedReference> f : futures) {
+      result.add(f.get());
+    }
+    return result;
+  }
+
+  private ResolvedReference createBufferedReference(Artifact artifact,
+      ProjectBuildingRequest projectBuildingRequest, boolean collectCandidates) {
+    ResolvedReference result = new ResolvedReference();
+    result.log = new BufferedLog(super.getLog());
+    if (collectCandidates) {
+      result.candidateIds = new LinkedHashSet<>();
+    }
+    currentReference.set(result);
+    try {
+      result.reference = createReference(artifact, projectBuildingRequest);
+    } catch (ProjectBuildingException ex) {
+      result.error = ex;
+    } catch (DefinitionsPending ex) {
+      // Created again when the collected definitions have been fetched
+    } finally {
+      currentReference.remove();
+    }
+    return result;
+  }
+
+  /**
+   * Create the reference for an artifact. The reference is only created once per execution and
+   * calls for the same artifact return the same result.
+   * 
+   * @param artifact The artifact to create the reference for.
+   * @param projectBuildingRequest The request used to resolve Maven artifacts.
+   * @return The reference as map.
+   * @throws ProjectBuildingException If the Maven project of the artifact can not be built.
+   */
   protected Map<String, Object> createReference(Artifact artifact,
       ProjectBuildingRequest projectBuildingRequest) throws ProjectBuildingException {
+    Map<String, Object> cached = referenceCache.get(artifact.getId());
+    Optional<String> configuration = getReferenceConfiguration();
+    if (cached == null && configuration.isPresent()) {
+      cached = getReactorCache().getReference(configuration.get(), artifact.getId());
+    }
+    if (cached != null) {
+      metrics.increment("cache.reference.hits");
+      return cached;
+    }
+    // A reference that waits for definitions is not counted until it is created
+    Metrics.Timer timer = metrics.start("reference");
+    final Map<String, Object> reference = createUncachedReference(artifact, projectBuildingRequest);
+    timer.close();
+    metrics.increment("cache.reference.misses");
+    metrics.recordArtifact(artifact.getId(), timer.elapsedNanos());
+
+    referenceCache.putIfAbsent(artifact.getId(), reference);
+    if (configuration.isPresent()) {
+      getReactorCache().putReference(configuration.get(), artifact.getId(), reference);
+    }
+    return reference;
+  }
+
+  private Map<String, Object> createUncachedReference(Artifact artifact,
+      ProjectBuildingRequest projectBuildingRequest) throws ProjectBuildingException {
     Map<String, Object> templateRef = null;
 
-    for (Map.Entry<Pattern, File> entry : getTemplatePatterns().entrySet()) {
-      getLog().debug(
-          "Testing artifact " + artifact.toString() + " with pattern " + entry.getKey().pattern());
-      if (entry.getKey().matcher(artifact.toString()).matches()) {
-        try {
-          getLog().info("Adding reference " + artifact.toString() + " from template "
-              + entry.getValue().getPath());
-          templateRef = createReferenceFromTemplate(artifact, projectBuildingRequest,
-              entry.getValue(), yamlLoad);
-          break;
-        } catch (IOException e) {
-          getLog().error("Could create reference from template " + entry.getValue().getPath(), e);
-        }
+    Optional<ArtifactMatcher.Template> template = getArtifactMatch(artifact).getTemplate();
+    while (templateRef == null && template.isPresent()) {
+      File templateFile = template.get().getFile();
+      try {
+        getLog().info("Adding reference " + artifact.toString() + " from template "
+            + templateFile.getPath());
+        templateRef = createReferenceFromTemplate(artifact, projectBuildingRequest, templateFile,
+            yamlLoad.get());
+      } catch (IOException e) {
+        getLog().error("Could create reference from template " + templateFile.getPath(), e);
+        // try the next template with a matching pattern
+        template = getArtifactMatcher().findTemplate(artifact.toString(),
+            template.get().getIndex() + 1);
       }
     }
 
@@ -168,7 +452,7 @@ public abstract class AbstractCffMojo extends AbstractMojo {
     Map<String, Object> reference = new LinkedHashMap<>();
 
     // Apply the template to the artifact Pojo
-    Template template = handlebars.compile(templateFile.getAbsolutePath());
+    Template template = getCompiledTemplate(templateFile);
     String referenceRaw = template.apply(artifact);
     // Parse the generated YAML and create a map out of it
     Object loaded = yamlLoad.loadFromString(referenceRaw);
@@ -187,6 +471,34 @@ public abstract class AbstractCffMojo extends AbstractMojo {
     return reference;
   }
 
+  /**
+   * Get the compiled Handlebars template for a file. Templates are only compiled again when the
+   * modification time of the file changes.
+   */
+  private Template getCompiledTemplate(File templateFile) throws IOException {
+    try {
+      return compiledTemplates.compute(templateFile.getAbsoluteFile(), (file, existing) -> {
+        long lastModified = file.lastModified();
+        if (existing != null && existing.lastModified == lastModified) {
+          return existing;
+        }
+        try (Metrics.Timer timer = metrics.start("template-compile")) {
+          CompiledTemplate result = new CompiledTemplate();
+          result.lastModified = lastModified;
+          result.template = handlebars.compile(file.getPath());
+          result.compilations = existing == null ? 1 : existing.compilations + 1;
+          getLog().debug("Compiled template " + file.getPath() + " (compiled "
+              + result.compilations + " time(s) in this execution)");
+          return result;
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }).template;
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
   private void createReferenceFromP2(Map<String, Object> reference, Artifact artifact,
       ProjectBuildingRequest projectBuildingRequest) throws ProjectBuildingException {
 
@@ -223,45 +535,34 @@ public abstract class AbstractCffMojo extends AbstractMojo {
     if (file != null && artifact.getFile().isFile()
         && "jar".equals(Files.getFileExtension(file.getName()))) {
       try {
-        try (ZipFile artifactFile = new ZipFile(artifact.getFile())) {
-          Enumeration<? extends ZipEntry> entries = artifactFile.entries();
-          while (entries.hasMoreElements()) {
-            ZipEntry currentEntry = entries.nextElement();
-            if (currentEntry.getName().endsWith("/pom.properties")) {
-              try (InputStream propertyInputStream = artifactFile.getInputStream(currentEntry)) {
-                Properties props = new Properties();
-                props.load(propertyInputStream);
-                String groupId = props.getProperty("groupId");
-                String artifactId = props.getProperty("artifactId");
-                String version = props.getProperty(VERSION);
-                if (groupId != null && artifactId != null && version != null) {
-                  // use the original maven artifact information
-                  Artifact newArtifact = new DefaultArtifact(groupId, artifactId, version,
-                      artifact.getScope(), artifact.getType(), artifact.getClassifier(),
-                      artifact.getArtifactHandler());
-                  // Don't try to fetch snapshot dependencies
-                  if (!newArtifact.isSnapshot()) {
-                    try {
-                      createReferenceFromMavenArtifact(reference, newArtifact,
-                          projectBuildingRequest);
-                      return true;
-                    } catch (ProjectBuildingException ex) {
-                      if (ex.getCause() instanceof ArtifactResolutionException) {
-                        getLog().warn("Replacing artifact " + artifact.toString() + " with "
-                            + newArtifact.toString()
-                            + " failed because the new one was not found.");
-                      } else {
-                        getLog().warn("Replacing artifact " + artifact.toString() + " with "
-                            + newArtifact.toString() + " failed", ex);
-                      }
-                    }
-                  }
+        JarIndex index = inspectJar(file);
+        for (Properties props : index.getPomProperties()) {
+          String groupId = props.getProperty("groupId");
+          String artifactId = props.getProperty("artifactId");
+          String version = props.getProperty(VERSION);
+          if (groupId != null && artifactId != null && version != null) {
+            // use the original maven artifact information
+            Artifact newArtifact = new DefaultArtifact(groupId, artifactId, version,
+                artifact.getScope(), artifact.getType(), artifact.getClassifier(),
+                artifact.getArtifactHandler());
+            // Don't try to fetch snapshot dependencies
+            if (!newArtifact.isSnapshot()) {
+              try {
+                createReferenceFromMavenArtifact(reference, newArtifact, projectBuildingRequest);
+                return true;
+              } catch (ProjectBuildingException ex) {
+                if (ex.getCause() instanceof ArtifactResolutionException) {
+                  getLog().warn("Replacing artifact " + artifact.toString() + " with "
+                      + newArtifact.toString() + " failed because the new one was not found.");
                 } else {
-                  getLog().error("Invalid pom.properties detected: " + groupId + "/" + artifactId
-                      + "/" + version);
+                  getLog().warn("Replacing artifact " + artifact.toString() + " with "
+                      + newArtifact.toString() + " failed", ex);
                 }
               }
             }
+          } else {
+            getLog().error(
+                "Invalid pom.properties detected: " + groupId + "/" + artifactId + "/" + version);
           }
         }
       } catch (ZipException ex) {
@@ -279,8 +580,7 @@ public abstract class AbstractCffMojo extends AbstractMojo {
 
   private void createReferenceFromMavenArtifact(Map<String, Object> reference, Artifact artifact,
       ProjectBuildingRequest projectBuildingRequest) throws ProjectBuildingException {
-    ProjectBuildingResult result = mavenProjectBuilder.build(artifact, projectBuildingRequest);
-    MavenProject project = result.getProject();
+    PomMetadata project = getPomMetadata(artifact, projectBuildingRequest);
 
     if (project.getName() != null && !project.getName().isEmpty()) {
       reference.put(TITLE, project.getName());
@@ -291,9 +591,9 @@ public abstract class AbstractCffMojo extends AbstractMojo {
     }
 
     // Add license information
-    List<License> licenses = project.getLicenses();
+    List<PomMetadata.License> licenses = project.getLicenses();
     if (!licenses.isEmpty()) {
-      License l = licenses.get(0);
+      PomMetadata.License l = licenses.get(0);
 
       Optional<String> spdx = KnownLicenses.parse(l.getName());
 
@@ -325,7 +625,7 @@ public abstract class AbstractCffMojo extends AbstractMojo {
     }
     // Add author information
     LinkedHashSet<Map<String, Object>> authorSet = new LinkedHashSet<>();
-    for (Developer dev : project.getDevelopers()) {
+    for (PomMetadata.Developer dev : project.getDevelopers()) {
       Map<String, Object> author = new LinkedHashMap<>();
 
       if (dev.getName() != null) {
@@ -347,24 +647,139 @@ public abstract class AbstractCffMojo extends AbstractMojo {
     reference.put("authors", new LinkedList<>(authorSet));
 
     // Add SCM URL if available
-    String scmUrl = getRepositoryCodeUrl(project.getScm());
+    String scmUrl = getRepositoryCodeUrl(project.getScmUrl());
     if (scmUrl != null) {
       reference.put("repository-code", scmUrl);
     }
   }
 
-  protected String getRepositoryCodeUrl(Scm scm) {
+  /**
+   * Get the metadata of the effective POM of an artifact. Building the effective POM is expensive,
+   * so the metadata is cached for this execution and for all modules of the build. The metadata of
+   * released artifacts, which never change, is also cached persistently, using the checksum of
+   * the POM file as part of the key.
+   */
+  private PomMetadata getPomMetadata(Artifact artifact,
+      ProjectBuildingRequest projectBuildingRequest) throws ProjectBuildingException {
+    PomMetadata result = pomMetadataCache.get(artifact.getId());
+    if (result == null && reactorCache) {
+      result = getReactorCache().getPomMetadata(artifact.getId());
+    }
+    if (result != null) {
+      metrics.increment("cache.project.hits");
+      return result;
+    }
+    metrics.increment("cache.project.misses");
 
-    if (scm != null) {
-      String scmUrl = scm.getUrl();
-      if (scmUrl != null && !scmUrl.isEmpty()) {
-        if (scmUrl.startsWith("scm:") || scmUrl.startsWith("git@")) {
-          getLog().warn("Invalid SCM URL " + scmUrl + " detected .It will be ignored.");
-        } else {
-          return scmUrl;
+    File pomFile = null;
+    if (!artifact.isSnapshot() || fastPomReader) {
+      pomFile = findPomFile(artifact.getGroupId(), artifact.getArtifactId(),
+          artifact.getVersion(), projectBuildingRequest);
+    }
+    Optional<String> persistentKey = Optional.empty();
+    if (!artifact.isSnapshot()) {
+      persistentKey = getPomMetadataKey(artifact, pomFile);
+      if (persistentKey.isPresent()) {
+        result = getPersistentPomMetadataCache().get(persistentKey.get());
+        metrics.increment(
+            result == null ? "cache.pomMetadata.misses" : "cache.pomMetadata.hits");
+      }
+    }
+    if (result == null && fastPomReader && pomFile != null) {
+      // Only the metadata created by the project builder is stored persistently
+      try (Metrics.Timer timer = metrics.start("pom-read")) {
+        result = getFastPomReader(projectBuildingRequest).read(pomFile).orElse(null);
+      }
+      metrics.increment(result == null ? "pomReader.fallbacks" : "pomReader.reads");
+    }
+    if (result == null) {
+      MavenProject project;
+      try (Metrics.Timer timer = metrics.start("project-build")) {
+        project = mavenProjectBuilder.build(artifact, projectBuildingRequest).getProject();
+      }
+      result = PomMetadata.of(project);
+      if (!artifact.isSnapshot()) {
+        if (!persistentKey.isPresent()) {
+          // The POM file has just been downloaded
+          persistentKey = getPomMetadataKey(artifact, project.getFile());
+        }
+        if (persistentKey.isPresent()) {
+          getPersistentPomMetadataCache().put(persistentKey.get(), result);
         }
       }
     }
+    pomMetadataCache.putIfAbsent(artifact.getId(), result);
+    if (reactorCache) {
+      getReactorCache().putPomMetadata(artifact.getId(), result);
+    }
+    return result;
+  }
+
+  /**
+   * Find a POM file in the local repository.
+   */
+  private File findPomFile(String groupId, String artifactId, String version,
+      ProjectBuildingRequest projectBuildingRequest) {
+    RepositorySystemSession session = projectBuildingRequest.getRepositorySession();
+    if (session == null) {
+      return null;
+    }
+    LocalArtifactResult result = session.getLocalRepositoryManager().find(session,
+        new LocalArtifactRequest(new org.eclipse.aether.artifact.DefaultArtifact(groupId,
+            artifactId, "pom", version), null, null));
+    return result.getFile();
+  }
+
+  /**
+   * Get the reader for POM files, which only uses parent POMs from the local repository. The
+   * properties of the profiles from the settings might override the properties of a POM, so they
+   * are not resolved by the reader.
+   */
+  private synchronized FastPomReader getFastPomReader(
+      ProjectBuildingRequest projectBuildingRequest) {
+    if (pomReader == null) {
+      Set<String> profileProperties = new HashSet<>();
+      for (Profile profile : projectBuildingRequest.getProfiles()) {
+        profileProperties.addAll(profile.getProperties().stringPropertyNames());
+      }
+      pomReader = new FastPomReader(
+          (groupId, artifactId, version) -> findPomFile(groupId, artifactId, version,
+              projectBuildingRequest),
+          projectBuildingRequest.getUserProperties(),
+          projectBuildingRequest.getSystemProperties(), profileProperties);
+    }
+    return pomReader;
+  }
+
+  /**
+   * Get the key of the POM metadata in the persistent cache, which changes when the POM file is
+   * modified.
+   */
+  private Optional<String> getPomMetadataKey(Artifact artifact, File pomFile) {
+    if (pomFile == null || !pomFile.isFile()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(artifact.getGroupId() + ":" + artifact.getArtifactId() + ":"
+          + artifact.getVersion() + "|" + Files.asByteSource(pomFile).hash(Hashing.sha256()));
+    } catch (IOException ex) {
+      getLog().debug("Could not read POM file " + pomFile.getPath(), ex);
+      return Optional.empty();
+    }
+  }
+
+  protected String getRepositoryCodeUrl(Scm scm) {
+    return scm == null ? null : getRepositoryCodeUrl(scm.getUrl());
+  }
+
+  private String getRepositoryCodeUrl(String scmUrl) {
+    if (scmUrl != null && !scmUrl.isEmpty()) {
+      if (scmUrl.startsWith("scm:") || scmUrl.startsWith("git@")) {
+        getLog().warn("Invalid SCM URL " + scmUrl + " detected .It will be ignored.");
+      } else {
+        return scmUrl;
+      }
+    }
     return null;
   }
 
@@ -378,12 +793,135 @@ public abstract class AbstractCffMojo extends AbstractMojo {
 
   private Optional<RemoteLicenseInformation> queryLicenseFromClearlyDefined(Artifact artifact) {
 
-    if (getRemoteLicenseCache().containsKey(artifact.getId())) {
-      return Optional.ofNullable(getRemoteLicenseCache().get(artifact.getId()));
+    RemoteLicenseInformation cached = getRemoteLicenseCache().get(artifact.getId());
+    if (cached != null) {
+      metrics.increment("cache.remoteLicense.hits");
+      if (cached.isFound()) {
+        return Optional.of(cached);
+      } else {
+        return Optional.empty();
+      }
+    }
+    metrics.increment("cache.remoteLicense.misses");
+
+    Optional<LicenseDatabase> database = getLicenseDatabase();
+    if (database.isPresent()) {
+      RemoteLicenseInformation stored = database.get().getLicense(artifact.getId());
+      if (stored != null) {
+        return stored.isFound() ? Optional.of(stored) : Optional.empty();
+      }
+    }
+    if (offline) {
+      getLog().warn("Not querying clearlydefined.io for the unknown license of "
+          + artifact.toString() + " in offline mode");
+      return Optional.empty();
+    }
+    try (Metrics.Timer timer = metrics.start("clearlydefined-query")) {
+      return queryClearlyDefined(artifact);
+    }
+  }
+
+  private Optional<RemoteLicenseInformation> queryClearlyDefined(Artifact artifact) {
+    ResolvedReference current = currentReference.get();
+    Optional<String> coordinates = getClearlyDefinedCoordinates(artifact);
+    if (current != null && current.candidateIds != null) {
+      // Only collect the IDs of the definitions, they are fetched in batches later
+      if (coordinates.isPresent()) {
+        current.candidateIds.add(coordinates.get());
+      } else {
+        List<CompletableFuture<List<String>>> searches = new LinkedList<>();
+        for (String pattern : getClearlyDefinedPatterns(artifact)) {
+          getLog()
+              .debug("Trying pattern \"" + pattern + "\" for artifact " + artifact.toString());
+          searches.add(getClearlyDefined().search(pattern));
+        }
+        boolean failed = false;
+        for (CompletableFuture<List<String>> search : searches) {
+          try {
+            current.candidateIds.addAll(search.join());
+          } catch (CompletionException ex) {
+            failed = true;
+            getLog().error("Could not interact with clearlydefined.io", ex.getCause());
+          }
+        }
+        if (!failed && current.candidateIds.isEmpty()) {
+          getRemoteLicenseCache().put(artifact.getId(), RemoteLicenseInformation.notFound());
+        }
+      }
+      if (!current.candidateIds.isEmpty()) {
+        throw new DefinitionsPending();
+      }
+      return Optional.empty();
     }
 
-    // query the REST API of ClearlyDefined
-    // https://api.clearlydefined.io/api-docs/
+    if (coordinates.isPresent()) {
+      // The definition has already been fetched in a batch
+      try {
+        Optional<RemoteLicenseInformation> result =
+            getClearlyDefined().definition(coordinates.get()).join();
+        getRemoteLicenseCache().put(artifact.getId(),
+            result.orElse(RemoteLicenseInformation.notFound()));
+        return result;
+      } catch (CompletionException ex) {
+        getLog().error("Could not interact with clearlydefined.io", ex.getCause());
+        return Optional.empty();
+      }
+    }
+
+    // Query the REST API of ClearlyDefined. All searches are started at once and the definitions
+    // of the search results are requested as soon as a search is finished.
+    List<CompletableFuture<List<RemoteLicenseInformation>>> searches = new LinkedList<>();
+    for (String pattern : getClearlyDefinedPatterns(artifact)) {
+      getLog().debug("Trying pattern \"" + pattern + "\" for artifact " + artifact.toString());
+      searches.add(getClearlyDefined().findLicenses(pattern));
+    }
+
+    // Collect the results in the order of the patterns and search results
+    TreeMap<Long, RemoteLicenseInformation> remoteLicensesByScore = new TreeMap<>();
+    boolean failed = false;
+    for (CompletableFuture<List<RemoteLicenseInformation>> search : searches) {
+      try {
+        for (RemoteLicenseInformation result : search.join()) {
+          getLog().debug("Found license information with score " + result.getScore()
+              + " for artifact " + artifact.toString());
+          remoteLicensesByScore.put(result.getScore(), result);
+        }
+      } catch (CompletionException ex) {
+        failed = true;
+        getLog().error("Could not interact with clearlydefined.io", ex.getCause());
+      }
+    }
+
+    if (remoteLicensesByScore.isEmpty()) {
+      // Remember that there is no information, unless this was caused by a temporary error
+      if (!failed) {
+        getRemoteLicenseCache().put(artifact.getId(), RemoteLicenseInformation.notFound());
+      }
+      return Optional.empty();
+    } else {
+      // return the entry with the highest score
+      RemoteLicenseInformation result = remoteLicensesByScore.lastEntry().getValue();
+      getRemoteLicenseCache().put(artifact.getId(), result);
+      return Optional.of(result);
+    }
+
+  }
+
+  /**
+   * Get the coordinates of the ClearlyDefined definition of a Maven artifact, which are used
+   * instead of searching for the definition when batch requests are enabled. P2 artifacts have no
+   * known coordinates and are always searched.
+   */
+  private Optional<String> getClearlyDefinedCoordinates(Artifact artifact) {
+    if (clearlyDefinedBatchSize <= 0
+        || P2_PLUGIN_GROUP_ID.matcher(artifact.getGroupId()).matches()) {
+      return Optional.empty();
+    }
+    return Optional.of("maven/mavencentral/" + artifact.getGroupId() + "/"
+        + artifact.getArtifactId() + "/" + artifact.getVersion());
+  }
+
+  private List<String> getClearlyDefinedPatterns(Artifact artifact) {
     List<String> patterns = new LinkedList<>();
     if (P2_PLUGIN_GROUP_ID.matcher(artifact.getGroupId()).matches()) {
       Optional<String> minorVersion = Optional.empty();
@@ -413,166 +951,398 @@ public abstract class AbstractCffMojo extends AbstractMojo {
       patterns.add(
           artifact.getGroupId() + "/" + artifact.getArtifactId() + "/" + artifact.getVersion());
     }
+    return patterns;
+  }
 
-    TreeMap<Long, RemoteLicenseInformation> remoteLicensesByScore = new TreeMap<>();
-
-    for (String pattern : patterns) {
-      getLog().debug("Trying pattern \"" + pattern + "\" for artifact " + artifact.toString());
-      HttpUrl findUrl =
-          DEFINITIONS_ENDPOINT.newBuilder().addQueryParameter("pattern", pattern).build();
-      Request findRequest = new Request.Builder().url(findUrl).build();
-
-      try (Response response = http.newCall(findRequest).execute()) {
-        if (response.code() == 200) {
-          // Parse JSON
-          JSONArray searchResult = new JSONArray(response.body().string());
-          for (Object foundArtifactId : searchResult) {
-            if (foundArtifactId instanceof String) {
-              Optional<RemoteLicenseInformation> result =
-                  queryLicenseForId((String) foundArtifactId);
-              if (result.isPresent()) {
-                getLog().debug("Found license information with score " + result.get().getScore()
-                    + " for artifact " + artifact.toString());
-                remoteLicensesByScore.put(result.get().getScore(), result.get());
-              }
-            }
-          }
-        }
-
-      } catch (IOException ex) {
-        getLog().error("Could not interact with clearlydefined.io", ex);
+  protected synchronized ClearlyDefinedClient getClearlyDefined() {
+    if (clearlyDefined == null) {
+      OkHttpClient clearlyDefinedHttp = getHttp(ClearlyDefinedClient.MAX_PARALLEL_REQUESTS);
+      Function<String, ClearlyDefinedClient> factory = url -> new ClearlyDefinedClient(
+          clearlyDefinedHttp, HttpUrl.get(url).newBuilder().addPathSegment("definitions").build());
+      if (reactorCache) {
+        // Share the results with all modules, but execute the requests of this execution with its
+        // own HTTP client
+        clearlyDefined = getReactorCache().getClearlyDefinedClient(clearlyDefinedUrl, factory)
+            .withHttp(clearlyDefinedHttp);
+      } else {
+        clearlyDefined = factory.apply(clearlyDefinedUrl);
       }
     }
+    return clearlyDefined;
+  }
 
-    if (remoteLicensesByScore.isEmpty()) {
-      return Optional.empty();
-    } else {
-      // return the entry with the highest score
-      RemoteLicenseInformation result = remoteLicensesByScore.lastEntry().getValue();
-      getRemoteLicenseCache().put(artifact.getId(), result);
-      return Optional.of(result);
+  /**
+   * Get the HTTP client, which adds the number and duration of all calls to the metrics of this
+   * execution.
+   * 
+   * @return The HTTP client.
+   */
+  protected synchronized OkHttpClient getHttp() {
+    if (instrumentedHttp == null) {
+      httpMetrics = getBuildShared(HttpMetrics.class, HttpMetrics::new);
+      httpMetrics.register(metrics);
+      instrumentedHttp = http.newBuilder().eventListenerFactory(httpMetrics).build();
     }
-
+    return instrumentedHttp;
   }
 
-  private Optional<RemoteLicenseInformation> queryLicenseForId(String id) throws IOException {
-    HttpUrl artifactUrl = DEFINITIONS_ENDPOINT.newBuilder().addEncodedPathSegment(id).build();
+  /**
+   * Get an HTTP client for asynchronous calls, which executes at most the given number of calls in
+   * parallel. The threads of the client are stopped when the caches of this execution are closed.
+   * 
+   * @param maxParallelRequests The maximum number of parallel calls.
+   * @return The HTTP client.
+   */
+  protected synchronized OkHttpClient getHttp(int maxParallelRequests) {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(maxParallelRequests);
+    dispatcher.setMaxRequestsPerHost(maxParallelRequests);
+    dispatchers.add(dispatcher);
+    return getHttp().newBuilder().dispatcher(dispatcher).build();
+  }
 
-    Response response = http.newCall(new Request.Builder().url(artifactUrl).build()).execute();
-    if (response.code() == 200) {
-      JSONObject root = new JSONObject(response.body().string());
-      // only use explicitly declared licenses
-      if (root.has("licensed")) {
-        JSONObject licensedObject = root.getJSONObject("licensed");
-        if (licensedObject.has("declared")) {
+  protected Metrics getMetrics() {
+    return metrics;
+  }
 
-          RemoteLicenseInformation result = new RemoteLicenseInformation();
-          result.setSpdx(licensedObject.getString("declared"));
+  /**
+   * Inspect a JAR file and measure the time needed for it.
+   * 
+   * @param file The JAR file.
+   * @return The index of the JAR file.
+   * @throws IOException If the JAR file can not be read.
+   */
+  protected JarIndex inspectJar(File file) throws IOException {
+    try (Metrics.Timer timer = metrics.start("jar-inspection")) {
+      return getJarInspector().inspect(file, getJarIndexCache());
+    }
+  }
 
-          if (root.has("scores")) {
-            JSONObject scores = root.getJSONObject("scores");
-            if (scores.has("effective")) {
-              result.setScore(scores.getLong("effective"));
-            }
-          }
+  /**
+   * Write the collected metrics to the log and, if configured, to the metrics report file.
+   * 
+   * @param goal The name of the executed goal.
+   */
+  protected void reportMetrics(String goal) {
+    metrics.log(getLog(), slowestArtifacts);
+    if (metricsReport != null) {
+      try {
+        metrics.writeJson(metricsReport, goal, slowestArtifacts);
+      } catch (IOException ex) {
+        getLog().error("Could not write metrics report " + metricsReport.getPath(), ex);
+      }
+    }
+  }
 
-          // also get the authors by using the attribution data
-          if (licensedObject.has("facets")) {
-            JSONObject facets = licensedObject.getJSONObject("facets");
-            if (facets != null) {
-              if (facets.has("core")) {
-                JSONObject core = facets.getJSONObject("core");
-                if (core.has("attribution")) {
-                  JSONObject attribution = core.getJSONObject("attribution");
-                  if (attribution.has("parties")) {
-                    JSONArray parties = attribution.getJSONArray("parties");
-                    for (Object p : parties) {
-                      if (p instanceof String) {
-                        result.getAuthors().add((String) p);
-                      }
-                    }
-                  }
-                }
-              }
-            }
-          }
+  /**
+   * Get the results that are shared by all modules of the build.
+   * 
+   * @return The shared results.
+   */
+  protected synchronized ReactorCache getReactorCache() {
+    if (sharedResults == null) {
+      sharedResults = getBuildShared(ReactorCache.class, ReactorCache::new);
+    }
+    return sharedResults;
+  }
 
-          return Optional.of(result);
+  /**
+   * Get a key for all parameters that influence the content of a reference. References created
+   * with the same key can be shared between the modules of a build.
+   * 
+   * @return The key, or empty if references should not be shared.
+   */
+  private synchronized Optional<String> getReferenceConfiguration() {
+    if (referenceConfiguration == null) {
+      referenceConfiguration = Optional.empty();
+      if (reactorCache) {
+        Fingerprint configuration = new Fingerprint();
+        try {
+          addFingerprintConfiguration(configuration);
+          referenceConfiguration = Optional.of(configuration.getConfigurationHash());
+        } catch (IOException ex) {
+          getLog().warn("Could not read the reference templates, references will not be shared "
+              + "with other modules.", ex);
         }
       }
     }
+    return referenceConfiguration;
+  }
 
-    return Optional.empty();
+  /**
+   * Get the JAR inspector that is shared by all executions of this plugin in the current build.
+   * 
+   * @return The shared JAR inspector.
+   */
+  protected synchronized JarInspector getJarInspector() {
+    if (jarInspector == null) {
+      jarInspector = getBuildShared(JarInspector.class, JarInspector::new);
+    }
+    return jarInspector;
+  }
+
+  /**
+   * Get an object that is shared by all executions of this plugin in the current build, e.g. for
+   * all modules of a multi-module project. The object is created if it does not exist yet.
+   * 
+   * @param type The class of the object, which is also used as key.
+   * @param factory Creates a new object.
+   * @return The shared object.
+   */
+  protected <T> T getBuildShared(Class<T> type, Supplier<T> factory) {
+    if (mavenSession == null || mavenSession.getRepositorySession() == null) {
+      return factory.get();
+    }
+    SessionData data = mavenSession.getRepositorySession().getData();
+    String key = type.getName();
+    while (true) {
+      Object existing = data.get(key);
+      if (type.isInstance(existing)) {
+        return type.cast(existing);
+      } else if (existing != null) {
+        // Stored by a different version of the plugin, which uses its own classes
+        return factory.get();
+      }
+      T created = factory.get();
+      if (data.set(key, null, created)) {
+        return created;
+      }
+    }
   }
 
   protected ProjectBuildingRequest createProjectBuildingRequest() {
-    return new DefaultProjectBuildingRequest(mavenSession.getProjectBuildingRequest())
-        .setRemoteRepositories(remoteRepositories)
-        .setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL)
-        .setResolveDependencies(false).setProcessPlugins(false);
+    ProjectBuildingRequest result =
+        new DefaultProjectBuildingRequest(mavenSession.getProjectBuildingRequest())
+            .setRemoteRepositories(remoteRepositories)
+            .setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL)
+            .setResolveDependencies(false).setProcessPlugins(false);
+    RepositorySystemSession session = result.getRepositorySession();
+    if (offline && session != null && !session.isOffline()) {
+      // Also resolve the POMs and parent POMs of dependencies only from the local repository
+      result.setRepositorySession(new DefaultRepositorySystemSession(session).setOffline(true));
+    }
+    return result;
+  }
+
+  /**
+   * Add all parameters that influence the created references to the fingerprint.
+   * 
+   * @param fingerprint The fingerprint to add the configuration to.
+   * @throws IOException If a template file can not be read.
+   */
+  protected void addFingerprintConfiguration(Fingerprint fingerprint) throws IOException {
+    if (pluginDescriptor != null) {
+      fingerprint.addConfiguration("plugin", pluginDescriptor.getId());
+    }
+    fingerprint.addConfiguration("includeEmail", includeEmail);
+    fingerprint.addConfiguration("p2IgnorePatchLevel", p2IgnorePatchLevel);
+    fingerprint.addConfiguration("p2ReconstructGroupId", p2ReconstructGroupId);
+    fingerprint.addConfiguration("clearlyDefinedUrl", clearlyDefinedUrl);
+    fingerprint.addConfiguration("offline", offline);
+    fingerprint.addConfiguration("fastPomReader", fastPomReader);
+    fingerprint.addConfigurationFile("licenseDatabase",
+        licenseDatabase != null && licenseDatabase.isFile() ? licenseDatabase : null);
+    // The references only contain the location of the third party folder relative to the output
+    if (thirdPartyFolder == null) {
+      fingerprint.addConfiguration("thirdPartyFolder", null);
+    } else {
+      fingerprint.addConfiguration("thirdPartyFolder", output.getAbsoluteFile().getParentFile()
+          .toPath().relativize(thirdPartyFolder.getAbsoluteFile().toPath()));
+    }
+    fingerprint.addConfiguration("ignoredArtifacts", ignoredArtifacts);
+    if (referenceTemplates != null) {
+      for (int i = 0; i < referenceTemplates.size(); i++) {
+        TemplateConfiguration config = referenceTemplates.get(i);
+        fingerprint.addConfiguration("referenceTemplates." + i + ".pattern", config.getPattern());
+        fingerprint.addConfigurationFile("referenceTemplates." + i + ".template",
+            config.getTemplate());
+      }
+    }
   }
 
   protected boolean isIgnored(Artifact artifact) {
-    if (ignoredPatterns == null) {
-      ignoredPatterns = new LinkedList<>();
+    return getArtifactMatch(artifact).isIgnored();
+  }
+
+  /**
+   * Match the artifact against the ignored artifacts and the reference templates. Each artifact is
+   * only matched once.
+   * 
+   * @param artifact The artifact to match.
+   * @return The match result.
+   */
+  protected ArtifactMatcher.Match getArtifactMatch(Artifact artifact) {
+    ArtifactMatcher matcher = getArtifactMatcher();
+    return artifactMatches.computeIfAbsent(artifact.toString(), matcher::match);
+  }
+
+  protected synchronized ArtifactMatcher getArtifactMatcher() {
+    if (artifactMatcher == null) {
+      artifactMatcher = new ArtifactMatcher();
       if (ignoredArtifacts != null) {
-        // Add all patterns defined in the "ignored" parameter to the list
+        // Add all patterns defined in the "ignored" parameter
         for (String patternRaw : ignoredArtifacts) {
-          Pattern pattern = Pattern.compile(patternRaw);
           getLog().info("Adding ignored pattern " + patternRaw);
-          ignoredPatterns.add(pattern);
+          artifactMatcher.addIgnored(patternRaw);
         }
       }
-    }
-    for (Pattern p : ignoredPatterns) {
-      if (p.matcher(artifact.toString()).matches()) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  protected Map<Pattern, File> getTemplatePatterns() {
-    if (templatePatterns == null) {
-      templatePatterns = new LinkedHashMap<>();
       if (referenceTemplates != null) {
         for (TemplateConfiguration config : referenceTemplates) {
-          Pattern p = Pattern.compile(config.getPattern());
-          templatePatterns.put(p, config.getTemplate());
+          artifactMatcher.addTemplate(config.getPattern(), config.getTemplate());
         }
       }
     }
-    return templatePatterns;
+    return artifactMatcher;
   }
 
 
-  protected PersistentCacheManager getCacheManager() {
+  /**
+   * Get the persistent cache manager. It is shared by all executions of the plugin that run at the
+   * same time. If its directory is locked, e.g. by another Maven process, a temporary cache is
+   * used for this execution instead.
+   * 
+   * @return The cache manager.
+   */
+  protected synchronized SharedCacheManager getCacheManager() {
     if (cacheManager == null) {
-      CacheManagerConfiguration<PersistentCacheManager> cacheConfig =
-          CacheManagerBuilder.persistence(System.getProperty("user.home")
-              + "/.m2/repository/.cache/cff-maven-plugin/" + this.getClass().getSimpleName());
-
-      cacheManager = CacheManagerBuilder.newCacheManagerBuilder().with(cacheConfig).build(true);
+      SharedCacheManager shared =
+          sharedCacheManager == null ? new SharedCacheManager() : sharedCacheManager;
+      try {
+        shared.acquire();
+        cacheManager = shared;
+        if (sharedCacheManager != null) {
+          keepOpenUntilSessionEnd(shared);
+        }
+      } catch (StateTransitionException ex) {
+        getLog().warn("Could not open the persistent cache, it is probably used by another "
+            + "Maven process. Using a temporary cache for this execution instead.");
+        getLog().debug(ex);
+        try {
+          SharedCacheManager temporary = SharedCacheManager.createTemporary();
+          temporary.acquire();
+          cacheManager = temporary;
+        } catch (IOException tmpEx) {
+          throw new UncheckedIOException(tmpEx);
+        }
+      }
     }
     return cacheManager;
   }
 
+  /**
+   * If the plugin is loaded as build extension, keep the shared cache manager open until the end
+   * of the session.
+   */
+  @SuppressWarnings("unchecked")
+  private void keepOpenUntilSessionEnd(SharedCacheManager manager) {
+    if (mavenSession == null || mavenSession.getRepositorySession() == null) {
+      return;
+    }
+    Object handlers = mavenSession.getRepositorySession().getData()
+        .get(CacheLifecycleParticipant.SESSION_END_HANDLERS);
+    if (handlers instanceof Collection<?> && manager.keepOpenUntilSessionEnd()) {
+      ((Collection<Runnable>) handlers).add(manager::sessionEnded);
+    }
+  }
 
-  protected Cache<String, RemoteLicenseInformation> getRemoteLicenseCache() {
+  protected synchronized Cache<String, RemoteLicenseInformation> getRemoteLicenseCache() {
     if (remoteLicenseCache == null) {
+      // The cache has a new name, because the entries are not stored with Java serialization
+      // anymore
+      remoteLicenseCache = getCacheManager().getCache("remoteLicenseInformation", String.class,
+          RemoteLicenseInformation.class,
+          () -> CacheConfigurationBuilder
+              .newCacheConfigurationBuilder(String.class, RemoteLicenseInformation.class,
+                  ResourcePoolsBuilder.newResourcePoolsBuilder().heap(100, EntryUnit.ENTRIES)
+                      .disk(100, MemoryUnit.MB, true))
+              .withValueSerializer(RemoteLicenseInformationSerializer.class)
+              .withExpiry(new RemoteLicenseExpiry(remoteLicenseCacheHours,
+                  remoteLicenseNotFoundCacheHours)));
+    }
+    return remoteLicenseCache;
+  }
+
+  protected synchronized Cache<String, String> getDownloadedLicensesCache() {
+    if (downloadedLicensesCache == null) {
+      downloadedLicensesCache = getCacheManager().getCache("downloadedLicenses", String.class,
+          String.class,
+          () -> CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class,
+              ResourcePoolsBuilder.newResourcePoolsBuilder().heap(100, EntryUnit.ENTRIES)
+                  .disk(100, MemoryUnit.MB, true)));
+    }
+    return downloadedLicensesCache;
+  }
 
-      remoteLicenseCache = getCacheManager().createCache("remoteLicense",
-          CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
-              RemoteLicenseInformation.class, ResourcePoolsBuilder.newResourcePoolsBuilder()
+  /**
+   * Get the license database configured with the "licenseDatabase" parameter. The database is
+   * only read once per execution.
+   * 
+   * @return The database or an empty value if none is configured or it could not be read.
+   */
+  protected synchronized Optional<LicenseDatabase> getLicenseDatabase() {
+    if (loadedLicenseDatabase == null) {
+      loadedLicenseDatabase = Optional.empty();
+      if (licenseDatabase != null) {
+        if (licenseDatabase.isFile()) {
+          try {
+            loadedLicenseDatabase = Optional.of(LicenseDatabase.read(licenseDatabase));
+          } catch (IOException ex) {
+            getLog().error("Could not read license database " + licenseDatabase.getPath(), ex);
+          }
+        } else {
+          getLog().warn("License database " + licenseDatabase.getPath() + " does not exist");
+        }
+      }
+    }
+    return loadedLicenseDatabase;
+  }
+
+  protected synchronized Cache<String, JarIndex> getJarIndexCache() {
+    if (jarIndexCache == null) {
+      jarIndexCache = getCacheManager().getCache("jarEntries", String.class, JarIndex.class,
+          () -> CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
+              JarIndex.class, ResourcePoolsBuilder.newResourcePoolsBuilder()
                   .heap(100, EntryUnit.ENTRIES).disk(100, MemoryUnit.MB, true)));
     }
-    return remoteLicenseCache;
+    return jarIndexCache;
   }
 
-  protected void closeCache() {
-    getCacheManager().close();
+  protected synchronized Cache<String, PomMetadata> getPersistentPomMetadataCache() {
+    if (persistentPomMetadataCache == null) {
+      persistentPomMetadataCache = getCacheManager().getCache("pomMetadata", String.class,
+          PomMetadata.class,
+          () -> CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class,
+              PomMetadata.class, ResourcePoolsBuilder.newResourcePoolsBuilder()
+                  .heap(100, EntryUnit.ENTRIES).disk(100, MemoryUnit.MB, true)));
+    }
+    return persistentPomMetadataCache;
+  }
+
+  /**
+   * Release the caches used by this execution. The persistent caches are closed if no other
+   * execution uses them.
+   */
+  protected synchronized void closeCache() {
+    for (Dispatcher dispatcher : dispatchers) {
+      dispatcher.executorService().shutdown();
+    }
+    dispatchers.clear();
+    if (httpMetrics != null) {
+      httpMetrics.unregister(metrics);
+      httpMetrics = null;
+      instrumentedHttp = null;
+    }
+    if (cacheManager != null) {
+      cacheManager.release();
+    }
     cacheManager = null;
+    referenceCache.clear();
+    pomMetadataCache.clear();
     remoteLicenseCache = null;
+    jarIndexCache = null;
+    persistentPomMetadataCache = null;
+    downloadedLicensesCache = null;
+    loadedLicenseDatabase = null;
   }
 
 }
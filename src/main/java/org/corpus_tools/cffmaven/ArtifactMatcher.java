@@ -0,0 +1,366 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Matches artifacts against the patterns of the ignored artifacts and the reference templates at
+ * once.
+ *
+ * <p>
+ * Patterns that only consist of a literal prefix followed by ".*" (like "com\.acme:.*") or of a
+ * literal string are stored in a prefix tree, so they can be checked with a single pass over the
+ * artifact string, regardless of how many of these patterns exist. All other patterns are stored in
+ * the prefix tree at the literal string they start with (like "org\.acme:" for
+ * "org\.acme:[a-z]+:.*") and are only checked as regular expressions if the artifact string
+ * starts with it.
+ * </p>
+ */
+public class ArtifactMatcher {
+
+  /**
+   * A reference template together with its pattern.
+   */
+  public static class Template {
+    private final int index;
+    private final Pattern pattern;
+    private final File file;
+
+    private Template(int index, Pattern pattern, File file) {
+      this.index = index;
+      this.pattern = pattern;
+      this.file = file;
+    }
+
+    /**
+     * The position of the template in the configuration.
+     *
+     * @return The zero-based index.
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    public Pattern getPattern() {
+      return pattern;
+    }
+
+    public File getFile() {
+      return file;
+    }
+  }
+
+  /**
+   * The result of matching an artifact.
+   */
+  public static class Match {
+    private final boolean ignored;
+    private final Template template;
+
+    private Match(boolean ignored, Template template) {
+      this.ignored = ignored;
+      this.template = template;
+    }
+
+    public boolean isIgnored() {
+      return ignored;
+    }
+
+    /**
+     * Get the first reference template in the order of the configuration with a matching pattern.
+     *
+     * @return The template, if any pattern matched.
+     */
+    public Optional<Template> getTemplate() {
+      return Optional.ofNullable(template);
+    }
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    /** Ignored if the matched string starts with the prefix of this node. */
+    private boolean ignoredPrefix;
+    /** Ignored if the matched string is equal to the prefix of this node. */
+    private boolean ignoredExact;
+    /** Smallest index of a template which matches all strings starting with this prefix. */
+    private int templatePrefix = Integer.MAX_VALUE;
+    /** Smallest index of a template which only matches this prefix as complete string. */
+    private int templateExact = Integer.MAX_VALUE;
+    /** Other patterns of ignored artifacts which start with this prefix. */
+    private final List<Pattern> ignoredPatterns = new ArrayList<>(0);
+    /** Other patterns of templates which start with this prefix. */
+    private final List<Template> templatePatterns = new ArrayList<>(0);
+  }
+
+  private final Node root = new Node();
+  private final List<Template> templates = new ArrayList<>();
+
+  /**
+   * Add a pattern for artifacts that should be ignored.
+   *
+   * @param regex The regular expression for the artifact string.
+   */
+  public void addIgnored(String regex) {
+    Pattern pattern = Pattern.compile(regex);
+    Optional<LiteralPattern> literal = LiteralPattern.parse(regex);
+    if (literal.isPresent()) {
+      Node node = getNode(literal.get().literal);
+      if (literal.get().prefix) {
+        node.ignoredPrefix = true;
+      } else {
+        node.ignoredExact = true;
+      }
+    } else {
+      getNode(LiteralPattern.prefixOf(regex)).ignoredPatterns.add(pattern);
+    }
+  }
+
+  /**
+   * Add a reference template. Templates that are added first take precedence.
+   *
+   * @param regex The regular expression for the artifact string.
+   * @param file The template file.
+   */
+  public void addTemplate(String regex, File file) {
+    Template template = new Template(templates.size(), Pattern.compile(regex), file);
+    templates.add(template);
+    Optional<LiteralPattern> literal = LiteralPattern.parse(regex);
+    if (literal.isPresent()) {
+      Node node = getNode(literal.get().literal);
+      if (literal.get().prefix) {
+        node.templatePrefix = Math.min(node.templatePrefix, template.index);
+      } else {
+        node.templateExact = Math.min(node.templateExact, template.index);
+      }
+    } else {
+      getNode(LiteralPattern.prefixOf(regex)).templatePatterns.add(template);
+    }
+  }
+
+  /**
+   * Match an artifact string against all patterns.
+   *
+   * @param value The string representation of the artifact.
+   * @return Whether the artifact is ignored and which template to use.
+   */
+  public Match match(String value) {
+    boolean ignored = false;
+    int template = Integer.MAX_VALUE;
+
+    // Walk along the prefix tree to check all literal patterns and to collect the other patterns
+    // that start with a prefix of the value. Since ".*" does not match line terminators, a prefix
+    // only matches if there is no line terminator after it.
+    List<Pattern> ignoredPatterns = new ArrayList<>();
+    List<Template> templatePatterns = new ArrayList<>();
+    int lastLineTerminator = lastLineTerminator(value);
+    Node node = root;
+    int pos = 0;
+    while (node != null) {
+      ignoredPatterns.addAll(node.ignoredPatterns);
+      templatePatterns.addAll(node.templatePatterns);
+      if (pos > lastLineTerminator) {
+        ignored |= node.ignoredPrefix;
+        template = Math.min(template, node.templatePrefix);
+      }
+      if (pos == value.length()) {
+        ignored |= node.ignoredExact;
+        template = Math.min(template, node.templateExact);
+        break;
+      }
+      node = node.children.get(value.charAt(pos));
+      pos++;
+    }
+
+    if (!ignored) {
+      for (Pattern p : ignoredPatterns) {
+        if (p.matcher(value).matches()) {
+          ignored = true;
+          break;
+        }
+      }
+    }
+    // Only check the templates that are configured before the best literal match
+    templatePatterns.sort(Comparator.comparingInt(Template::getIndex));
+    for (Template t : templatePatterns) {
+      if (t.index >= template) {
+        break;
+      }
+      if (t.pattern.matcher(value).matches()) {
+        template = t.index;
+        break;
+      }
+    }
+    return new Match(ignored, template == Integer.MAX_VALUE ? null : templates.get(template));
+  }
+
+  /**
+   * Find the first matching template, starting at the given position of the configuration.
+   *
+   * @param value The string representation of the artifact.
+   * @param fromIndex The index of the first template to check.
+   * @return The matching template, if any.
+   */
+  public Optional<Template> findTemplate(String value, int fromIndex) {
+    for (int i = fromIndex; i < templates.size(); i++) {
+      if (templates.get(i).pattern.matcher(value).matches()) {
+        return Optional.of(templates.get(i));
+      }
+    }
+    return Optional.empty();
+  }
+
+  private Node getNode(String prefix) {
+    Node node = root;
+    for (int i = 0; i < prefix.length(); i++) {
+      node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+    }
+    return node;
+  }
+
+  private static int lastLineTerminator(String value) {
+    for (int i = value.length() - 1; i >= 0; i--) {
+      char c = value.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A regular expression that only matches a literal string, optionally followed by anything.
+   */
+  static class LiteralPattern {
+    private final String literal;
+    private final boolean prefix;
+
+    private LiteralPattern(String literal, boolean prefix) {
+      this.literal = literal;
+      this.prefix = prefix;
+    }
+
+    /**
+     * Try to parse a regular expression as literal string with an optional ".*" at the end.
+     *
+     * @param regex The regular expression.
+     * @return The literal pattern, or empty if the regular expression contains other constructs.
+     */
+    static Optional<LiteralPattern> parse(String regex) {
+      boolean prefix = false;
+      int end = regex.length();
+      if (regex.endsWith(".*") && !isEscaped(regex, end - 2)) {
+        prefix = true;
+        end -= 2;
+      }
+      StringBuilder literal = new StringBuilder();
+      for (int i = 0; i < end; i++) {
+        char c = regex.charAt(i);
+        if (c == '\\') {
+          // Only escaped punctuation is a literal character, e.g. "\d" is a character class
+          if (i + 1 >= end) {
+            return Optional.empty();
+          }
+          char escaped = regex.charAt(i + 1);
+          if (Character.isLetterOrDigit(escaped) || escaped > 127) {
+            return Optional.empty();
+          }
+          literal.append(escaped);
+          i++;
+        } else if (isLiteral(c)) {
+          literal.append(c);
+        } else {
+          return Optional.empty();
+        }
+      }
+      return Optional.of(new LiteralPattern(literal.toString(), prefix));
+    }
+
+    /**
+     * Get the literal string every match of a regular expression starts with.
+     *
+     * @param regex The regular expression.
+     * @return The literal prefix, which is empty if it is not known.
+     */
+    static String prefixOf(String regex) {
+      if (hasTopLevelAlternative(regex)) {
+        return "";
+      }
+      StringBuilder literal = new StringBuilder();
+      for (int i = 0; i < regex.length(); i++) {
+        char c = regex.charAt(i);
+        if (isQuantifier(c)) {
+          // The previous character is optional or repeated
+          if (literal.length() > 0) {
+            literal.setLength(literal.length() - 1);
+          }
+          break;
+        } else if (c == '\\') {
+          if (i + 1 >= regex.length()) {
+            break;
+          }
+          char escaped = regex.charAt(i + 1);
+          if (Character.isLetterOrDigit(escaped) || escaped > 127) {
+            break;
+          }
+          literal.append(escaped);
+          i++;
+        } else if (isLiteral(c)) {
+          literal.append(c);
+        } else {
+          // Any other construct ends the prefix
+          break;
+        }
+      }
+      return literal.toString();
+    }
+
+    private static boolean isLiteral(char c) {
+      return c <= 127 && (Character.isLetterOrDigit(c) || c == ':' || c == '-' || c == '_'
+          || c == '/' || c == '@' || c == ',' || c == '=' || c == ' ');
+    }
+
+    private static boolean isQuantifier(char c) {
+      return c == '*' || c == '+' || c == '?' || c == '{';
+    }
+
+    /**
+     * Check if the regular expression contains an alternative ("|") outside of any group, in which
+     * case it has no common prefix.
+     */
+    private static boolean hasTopLevelAlternative(String regex) {
+      int depth = 0;
+      boolean inClass = false;
+      for (int i = 0; i < regex.length(); i++) {
+        char c = regex.charAt(i);
+        if (c == '\\') {
+          i++;
+        } else if (inClass) {
+          inClass = c != ']';
+        } else if (c == '[') {
+          inClass = true;
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (c == '|' && depth == 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean isEscaped(String regex, int pos) {
+      int backslashes = 0;
+      for (int i = pos - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+        backslashes++;
+      }
+      return backslashes % 2 == 1;
+    }
+  }
+}
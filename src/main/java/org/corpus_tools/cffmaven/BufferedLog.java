@@ -0,0 +1,172 @@
+package org.corpus_tools.cffmaven;
+
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A {@link Log} that records all messages so they can be replayed later to another log. This is
+ * used to keep the log output of artifacts that are resolved in parallel in a deterministic order.
+ */
+public class BufferedLog implements Log {
+
+  private enum Level {
+    DEBUG, INFO, WARN, ERROR
+  }
+
+  private static class Message {
+    private final Level level;
+    private final CharSequence content;
+    private final Throwable error;
+
+    private Message(Level level, CharSequence content, Throwable error) {
+      this.level = level;
+      this.content = content;
+      this.error = error;
+    }
+  }
+
+  private final Log delegate;
+  private final List<Message> messages = new LinkedList<>();
+
+  /**
+   * Create a new buffered log.
+   *
+   * @param delegate The log that is used to decide which levels are enabled.
+   */
+  public BufferedLog(Log delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Write all recorded messages to the given log, in the order they have been recorded.
+   *
+   * @param target The log to write the messages to.
+   */
+  public void replay(Log target) {
+    for (Message m : messages) {
+      switch (m.level) {
+        case DEBUG:
+          if (m.error == null) {
+            target.debug(m.content);
+          } else if (m.content == null) {
+            target.debug(m.error);
+          } else {
+            target.debug(m.content, m.error);
+          }
+          break;
+        case INFO:
+          if (m.error == null) {
+            target.info(m.content);
+          } else if (m.content == null) {
+            target.info(m.error);
+          } else {
+            target.info(m.content, m.error);
+          }
+          break;
+        case WARN:
+          if (m.error == null) {
+            target.warn(m.content);
+          } else if (m.content == null) {
+            target.warn(m.error);
+          } else {
+            target.warn(m.content, m.error);
+          }
+          break;
+        default:
+          if (m.error == null) {
+            target.error(m.content);
+          } else if (m.content == null) {
+            target.error(m.error);
+          } else {
+            target.error(m.content, m.error);
+          }
+          break;
+      }
+    }
+  }
+
+  private void add(Level level, CharSequence content, Throwable error) {
+    messages.add(new Message(level, content, error));
+  }
+
+  @Override
+  public boolean isDebugEnabled() {
+    return delegate.isDebugEnabled();
+  }
+
+  @Override
+  public void debug(CharSequence content) {
+    add(Level.DEBUG, content, null);
+  }
+
+  @Override
+  public void debug(CharSequence content, Throwable error) {
+    add(Level.DEBUG, content, error);
+  }
+
+  @Override
+  public void debug(Throwable error) {
+    add(Level.DEBUG, null, error);
+  }
+
+  @Override
+  public boolean isInfoEnabled() {
+    return delegate.isInfoEnabled();
+  }
+
+  @Override
+  public void info(CharSequence content) {
+    add(Level.INFO, content, null);
+  }
+
+  @Override
+  public void info(CharSequence content, Throwable error) {
+    add(Level.INFO, content, error);
+  }
+
+  @Override
+  public void info(Throwable error) {
+    add(Level.INFO, null, error);
+  }
+
+  @Override
+  public boolean isWarnEnabled() {
+    return delegate.isWarnEnabled();
+  }
+
+  @Override
+  public void warn(CharSequence content) {
+    add(Level.WARN, content, null);
+  }
+
+  @Override
+  public void warn(CharSequence content, Throwable error) {
+    add(Level.WARN, content, error);
+  }
+
+  @Override
+  public void warn(Throwable error) {
+    add(Level.WARN, null, error);
+  }
+
+  @Override
+  public boolean isErrorEnabled() {
+    return delegate.isErrorEnabled();
+  }
+
+  @Override
+  public void error(CharSequence content) {
+    add(Level.ERROR, content, null);
+  }
+
+  @Override
+  public void error(CharSequence content, Throwable error) {
+    add(Level.ERROR, content, error);
+  }
+
+  @Override
+  public void error(Throwable error) {
+    add(Level.ERROR, null, error);
+  }
+}
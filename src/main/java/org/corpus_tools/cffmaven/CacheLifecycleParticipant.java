@@ -0,0 +1,56 @@
+package org.corpus_tools.cffmaven;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Allows to keep the shared persistent caches open for the whole Maven session. Maven only calls
+ * this participant if the plugin is loaded as build extension, otherwise the caches are closed
+ * after each execution.
+ *
+ * <p>
+ * The participant is loaded in the extension class realm, while the goals use the caches of the
+ * plugin class realm. They communicate with a list of handlers in the session data, which the
+ * participant runs at the end of the session.
+ * </p>
+ */
+@Named("cff-maven-plugin")
+@Singleton
+public class CacheLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+  /**
+   * Key of a collection of {@link Runnable} in the session data, which are run at the end of the
+   * session.
+   */
+  public static final String SESSION_END_HANDLERS =
+      "org.corpus_tools.cffmaven.sessionEndHandlers";
+
+  @Override
+  public void afterProjectsRead(MavenSession session) {
+    if (session.getRepositorySession() != null) {
+      session.getRepositorySession().getData().set(SESSION_END_HANDLERS,
+          new CopyOnWriteArrayList<Runnable>());
+    }
+  }
+
+  @Override
+  public void afterSessionEnd(MavenSession session) {
+    if (session.getRepositorySession() != null) {
+      SessionData data = session.getRepositorySession().getData();
+      Object handlers = data.get(SESSION_END_HANDLERS);
+      data.set(SESSION_END_HANDLERS, null);
+      if (handlers instanceof Collection<?>) {
+        for (Object handler : (Collection<?>) handlers) {
+          if (handler instanceof Runnable) {
+            ((Runnable) handler).run();
+          }
+        }
+      }
+    }
+  }
+}
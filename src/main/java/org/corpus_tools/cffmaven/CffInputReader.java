@@ -0,0 +1,272 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.api.YamlUnicodeReader;
+import org.snakeyaml.engine.v2.common.Anchor;
+import org.snakeyaml.engine.v2.composer.Composer;
+import org.snakeyaml.engine.v2.constructor.StandardConstructor;
+import org.snakeyaml.engine.v2.events.Event;
+import org.snakeyaml.engine.v2.events.NodeEvent;
+import org.snakeyaml.engine.v2.exceptions.ComposerException;
+import org.snakeyaml.engine.v2.exceptions.Mark;
+import org.snakeyaml.engine.v2.exceptions.YamlEngineException;
+import org.snakeyaml.engine.v2.nodes.Node;
+import org.snakeyaml.engine.v2.parser.Parser;
+import org.snakeyaml.engine.v2.parser.ParserImpl;
+import org.snakeyaml.engine.v2.scanner.StreamReader;
+
+/**
+ * Reads an input CFF file without loading its references into memory. When the reader is
+ * created, all fields except the references are loaded and only the titles of the references are
+ * collected. The references themselves are read again one by one when they are copied to the
+ * output.
+ *
+ * <p>
+ * Anchors can only be referenced inside of the same field or reference. If a whole field or
+ * reference is an alias, the file is loaded completely instead.
+ * </p>
+ */
+public class CffInputReader {
+
+  private final File input;
+  private final String referencesKey;
+  private final String titleKey;
+  private final LoadSettings settings = LoadSettings.builder().build();
+
+  private final Map<String, Object> header = new LinkedHashMap<>();
+  private final Set<String> titles = new HashSet<>();
+  /**
+   * The references of a completely loaded file or null if the references are read on demand.
+   */
+  private List<Map<String, Object>> references;
+
+  /**
+   * Read the fields and the titles of the references of an input file.
+   *
+   * @param input The input CFF file.
+   * @param referencesKey The key of the references field.
+   * @param titleKey The key of the title field of a reference.
+   * @throws IOException If the file can not be read or is no valid YAML file.
+   */
+  public CffInputReader(File input, String referencesKey, String titleKey) throws IOException {
+    this.input = input;
+    this.referencesKey = referencesKey;
+    this.titleKey = titleKey;
+    ReferenceHandler collectTitle = reference -> {
+      Object title = reference.get(titleKey);
+      if (title != null) {
+        titles.add(title.toString());
+      }
+    };
+    try {
+      read(true, collectTitle);
+    } catch (AliasedItemException ex) {
+      header.clear();
+      titles.clear();
+      references = new ArrayList<>();
+      load(reference -> {
+        references.add(reference);
+        collectTitle.accept(reference);
+      });
+    }
+  }
+
+  /**
+   * Get all fields of the input file except the references, in the order of the file.
+   *
+   * @return The fields.
+   */
+  public Map<String, Object> getHeader() {
+    return Collections.unmodifiableMap(header);
+  }
+
+  public Set<String> getTitles() {
+    return Collections.unmodifiableSet(titles);
+  }
+
+  /**
+   * Write all references of the input file to the output.
+   *
+   * @param writer The writer of the output file.
+   * @throws IOException If the input file can not be read or the output can not be written.
+   */
+  public void copyReferences(CffWriter writer) throws IOException {
+    if (references == null) {
+      read(false, writer::writeReference);
+    } else {
+      for (Map<String, Object> reference : references) {
+        writer.writeReference(reference);
+      }
+    }
+  }
+
+  /**
+   * Read only the references with the given titles. If several references have the same title, the
+   * last one is used.
+   *
+   * @param selectedTitles The titles of the references to read.
+   * @return The references by their title.
+   * @throws IOException If the input file can not be read.
+   */
+  public Map<String, Map<String, Object>> getReferences(Set<String> selectedTitles)
+      throws IOException {
+    Map<String, Map<String, Object>> result = new HashMap<>();
+    ReferenceHandler select = reference -> {
+      Object title = reference.get(titleKey);
+      if (title != null && selectedTitles.contains(title.toString())) {
+        result.put(title.toString(), reference);
+      }
+    };
+    if (references == null) {
+      read(false, select);
+    } else {
+      for (Map<String, Object> reference : references) {
+        select.accept(reference);
+      }
+    }
+    return result;
+  }
+
+  private interface ReferenceHandler {
+    void accept(Map<String, Object> reference) throws IOException;
+  }
+
+  /**
+   * Parse the input file and construct the references one by one. Like when loading the whole
+   * file, only references that are mappings are used and only the fields with a string key.
+   */
+  private void read(boolean readHeader, ReferenceHandler handler) throws IOException {
+    try (InputStream in = new FileInputStream(input); Reader reader = new YamlUnicodeReader(in)) {
+      Parser parser = new ParserImpl(new StreamReader(reader, settings), settings);
+      ItemComposer composer = new ItemComposer(parser);
+      StandardConstructor constructor = new StandardConstructor(settings);
+
+      parser.next();
+      if (!parser.checkEvent(Event.ID.DocumentStart)) {
+        // empty file
+        return;
+      }
+      parser.next();
+      if (!parser.checkEvent(Event.ID.MappingStart)) {
+        // not a CFF file
+        return;
+      }
+      parser.next();
+      while (!parser.checkEvent(Event.ID.MappingEnd)) {
+        Object key = constructor.constructSingleDocument(Optional.of(composer.composeItem()));
+        if (referencesKey.equals(key) && parser.checkEvent(Event.ID.SequenceStart)) {
+          parser.next();
+          while (!parser.checkEvent(Event.ID.SequenceEnd)) {
+            Object item = constructor.constructSingleDocument(Optional.of(composer.composeItem()));
+            handleReference(item, handler);
+          }
+          parser.next();
+        } else {
+          // The value is always composed, because it might define anchors used later
+          Node value = composer.composeItem();
+          if (readHeader && key instanceof String && !referencesKey.equals(key)) {
+            header.put((String) key, constructor.constructSingleDocument(Optional.of(value)));
+          }
+        }
+      }
+    } catch (AliasedItemException ex) {
+      if (readHeader) {
+        // The caller loads the whole file instead
+        throw ex;
+      }
+      throw new IOException("Invalid CFF file " + input.getPath(), ex);
+    } catch (YamlEngineException ex) {
+      throw new IOException("Invalid CFF file " + input.getPath(), ex);
+    }
+  }
+
+  /**
+   * Load the whole first document of the input file, which is needed if it contains aliases
+   * outside of references.
+   */
+  private void load(ReferenceHandler handler) throws IOException {
+    try (InputStream in = new FileInputStream(input)) {
+      Iterator<Object> documents = new Load(settings).loadAllFromInputStream(in).iterator();
+      Object loaded = documents.hasNext() ? documents.next() : null;
+      if (loaded instanceof Map<?, ?>) {
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) loaded).entrySet()) {
+          if (referencesKey.equals(e.getKey())) {
+            if (e.getValue() instanceof List<?>) {
+              for (Object item : (List<?>) e.getValue()) {
+                handleReference(item, handler);
+              }
+            }
+          } else if (e.getKey() instanceof String) {
+            header.put((String) e.getKey(), e.getValue());
+          }
+        }
+      }
+    } catch (YamlEngineException ex) {
+      throw new IOException("Invalid CFF file " + input.getPath(), ex);
+    }
+  }
+
+  private static void handleReference(Object item, ReferenceHandler handler) throws IOException {
+    if (item instanceof Map<?, ?>) {
+      Map<String, Object> reference = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> e : ((Map<?, ?>) item).entrySet()) {
+        if (e.getKey() instanceof String) {
+          reference.put((String) e.getKey(), e.getValue());
+        }
+      }
+      handler.accept(reference);
+    }
+  }
+
+  /**
+   * Thrown if a whole item of the top-level mapping or the references is an alias.
+   */
+  private static class AliasedItemException extends ComposerException {
+    private static final long serialVersionUID = 3215542917466128337L;
+
+    AliasedItemException(Optional<Mark> mark) {
+      super("Aliases are only supported inside of references", mark);
+    }
+  }
+
+  /**
+   * Composes single items of a collection instead of whole documents.
+   */
+  private class ItemComposer extends Composer {
+
+    ItemComposer(Parser parser) {
+      super(parser, settings);
+    }
+
+    Node composeItem() {
+      Event event = parser.peekEvent();
+      Optional<Anchor> anchor = ((NodeEvent) event).getAnchor();
+      switch (event.getEventId()) {
+        case Scalar:
+          return composeScalarNode(anchor);
+        case SequenceStart:
+          return composeSequenceNode(anchor);
+        case MappingStart:
+          return composeMappingNode(anchor);
+        default:
+          throw new AliasedItemException(event.getStartMark());
+      }
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.api.StreamDataWriter;
+import org.snakeyaml.engine.v2.common.FlowStyle;
+import org.snakeyaml.engine.v2.emitter.Emitter;
+import org.snakeyaml.engine.v2.events.DocumentEndEvent;
+import org.snakeyaml.engine.v2.events.DocumentStartEvent;
+import org.snakeyaml.engine.v2.events.Event;
+import org.snakeyaml.engine.v2.events.ImplicitTuple;
+import org.snakeyaml.engine.v2.events.MappingEndEvent;
+import org.snakeyaml.engine.v2.events.MappingStartEvent;
+import org.snakeyaml.engine.v2.events.ScalarEvent;
+import org.snakeyaml.engine.v2.events.SequenceEndEvent;
+import org.snakeyaml.engine.v2.events.SequenceStartEvent;
+import org.snakeyaml.engine.v2.events.StreamEndEvent;
+import org.snakeyaml.engine.v2.events.StreamStartEvent;
+import org.snakeyaml.engine.v2.nodes.MappingNode;
+import org.snakeyaml.engine.v2.nodes.Node;
+import org.snakeyaml.engine.v2.nodes.NodeTuple;
+import org.snakeyaml.engine.v2.nodes.ScalarNode;
+import org.snakeyaml.engine.v2.nodes.SequenceNode;
+import org.snakeyaml.engine.v2.nodes.Tag;
+import org.snakeyaml.engine.v2.representer.StandardRepresenter;
+
+/**
+ * Writes a CFF file reference by reference, so neither the whole YAML document nor its node tree
+ * is held in memory. The result is the same as dumping the complete document with the settings
+ * from {@link #createDumpSettings()}. The references are written in the order they are passed to
+ * the writer. The file is first written to a new temporary file next to the output file, which
+ * then replaces the output file when {@link #commit()} is called. If the writer is closed without
+ * committing, the previous output file is left unchanged.
+ */
+public class CffWriter implements Closeable {
+
+  private final DumpSettings settings = createDumpSettings();
+  private final StandardRepresenter representer = new StandardRepresenter(settings);
+
+  private final File output;
+  private final Path temporary;
+  private final Writer writer;
+  private final Emitter emitter;
+  private boolean committed = false;
+
+  /**
+   * Start writing a CFF file.
+   *
+   * @param output The file to write.
+   * @param header All fields of the CFF file except the references, which are written after them.
+   * @param referencesKey The key of the references field.
+   * @throws IOException If the temporary file can not be written.
+   */
+  public CffWriter(File output, Map<String, Object> header, String referencesKey)
+      throws IOException {
+    this.output = output.getAbsoluteFile();
+    // Each writer needs its own temporary file, other builds might write the same output file
+    this.temporary = Files.createTempFile(this.output.getParentFile().toPath(),
+        "." + output.getName() + ".", ".tmp");
+    this.writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8);
+    this.emitter = new Emitter(settings, new StreamDataWriter() {
+      @Override
+      public void write(String str) {
+        try {
+          writer.write(str);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+
+      @Override
+      public void write(String str, int off, int len) {
+        try {
+          writer.write(str, off, len);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+    });
+
+    try {
+      emit(new StreamStartEvent());
+      emit(new DocumentStartEvent(settings.isExplicitStart(), settings.getYamlDirective(),
+          settings.getTagDirective()));
+      // Write the start of the document mapping and all header fields, but leave it open
+      MappingNode root = (MappingNode) representer.represent(header);
+      emit(new MappingStartEvent(Optional.empty(), Optional.of(root.getTag().getValue()),
+          root.getTag().equals(Tag.MAP), root.getFlowStyle()));
+      for (NodeTuple tuple : root.getValue()) {
+        emitNode(tuple.getKeyNode());
+        emitNode(tuple.getValueNode());
+      }
+      emitNode(representer.represent(referencesKey));
+      emit(new SequenceStartEvent(Optional.empty(), Optional.of(Tag.SEQ.getValue()), true,
+          settings.getDefaultFlowStyle()));
+    } catch (IOException | RuntimeException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Get the settings that are used to write CFF files.
+   *
+   * @return The settings.
+   */
+  public static DumpSettings createDumpSettings() {
+    return DumpSettings.builder().setDefaultFlowStyle(FlowStyle.BLOCK).build();
+  }
+
+  /**
+   * Append a reference to the list of references.
+   *
+   * @param reference The reference.
+   * @throws IOException If the reference can not be written.
+   */
+  public void writeReference(Map<String, Object> reference) throws IOException {
+    emitNode(representer.represent(reference));
+  }
+
+  /**
+   * Finish the document and replace the output file with it.
+   *
+   * @throws IOException If the document can not be written or moved to the output file.
+   */
+  public void commit() throws IOException {
+    emit(new SequenceEndEvent());
+    emit(new MappingEndEvent());
+    emit(new DocumentEndEvent(settings.isExplicitEnd()));
+    emit(new StreamEndEvent());
+    writer.close();
+    copyPermissions();
+    try {
+      Files.move(temporary, output.toPath(), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(temporary, output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    committed = true;
+  }
+
+  /**
+   * Temporary files are only readable by the owner, so use the permissions of the previous output
+   * file or the usual permissions of a new file instead.
+   */
+  private void copyPermissions() throws IOException {
+    try {
+      Set<PosixFilePermission> permissions = output.exists()
+          ? Files.getPosixFilePermissions(output.toPath())
+          : PosixFilePermissions.fromString("rw-r--r--");
+      Files.setPosixFilePermissions(temporary, permissions);
+    } catch (UnsupportedOperationException ex) {
+      // Not a POSIX file system
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!committed) {
+      try {
+        writer.close();
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    }
+  }
+
+  /**
+   * Emit the events for a node the same way the serializer of SnakeYAML does. Nodes are never
+   * written as anchors and aliases, but repeated.
+   */
+  private void emitNode(Node node) throws IOException {
+    Optional<String> tag = Optional.of(node.getTag().getValue());
+    if (node instanceof ScalarNode) {
+      ScalarNode scalar = (ScalarNode) node;
+      Tag detectedTag = settings.getScalarResolver().resolve(scalar.getValue(), true);
+      Tag defaultTag = settings.getScalarResolver().resolve(scalar.getValue(), false);
+      ImplicitTuple implicit =
+          new ImplicitTuple(node.getTag().equals(detectedTag), node.getTag().equals(defaultTag));
+      emit(new ScalarEvent(Optional.empty(), tag, implicit, scalar.getValue(),
+          scalar.getScalarStyle()));
+    } else if (node instanceof SequenceNode) {
+      SequenceNode sequence = (SequenceNode) node;
+      emit(new SequenceStartEvent(Optional.empty(), tag, node.getTag().equals(Tag.SEQ),
+          sequence.getFlowStyle()));
+      for (Node item : sequence.getValue()) {
+        emitNode(item);
+      }
+      emit(new SequenceEndEvent());
+    } else {
+      MappingNode mapping = (MappingNode) node;
+      emit(new MappingStartEvent(Optional.empty(), tag, node.getTag().equals(Tag.MAP),
+          mapping.getFlowStyle()));
+      for (NodeTuple tuple : mapping.getValue()) {
+        emitNode(tuple.getKeyNode());
+        emitNode(tuple.getValueNode());
+      }
+      emit(new MappingEndEvent());
+    }
+  }
+
+  private void emit(Event event) throws IOException {
+    try {
+      emitter.emit(event);
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+}
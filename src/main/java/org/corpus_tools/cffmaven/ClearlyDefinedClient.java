@@ -0,0 +1,308 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Asynchronous client for the REST API of ClearlyDefined (https://api.clearlydefined.io/api-docs/).
+ *
+ * <p>
+ * All requests are executed in parallel. Requests for the same search pattern or definition ID
+ * share a single HTTP call and its result is reused for the lifetime of the client.
+ * </p>
+ */
+public class ClearlyDefinedClient {
+
+  /**
+   * Maximum number of requests the HTTP client of this client should execute at the same time.
+   */
+  static final int MAX_PARALLEL_REQUESTS = 16;
+
+  private final OkHttpClient http;
+  private final HttpUrl definitionsEndpoint;
+
+  private static final MediaType JSON = MediaType.get("application/json");
+
+  private final Map<String, CompletableFuture<List<String>>> searches;
+  private final Map<String, CompletableFuture<Optional<RemoteLicenseInformation>>> definitions;
+
+  /**
+   * Create a new client.
+   *
+   * @param http The HTTP client, whose dispatcher limits the number of parallel requests.
+   * @param definitionsEndpoint The URL of the definitions endpoint.
+   */
+  public ClearlyDefinedClient(OkHttpClient http, HttpUrl definitionsEndpoint) {
+    this(http, definitionsEndpoint, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+  }
+
+  private ClearlyDefinedClient(OkHttpClient http, HttpUrl definitionsEndpoint,
+      Map<String, CompletableFuture<List<String>>> searches,
+      Map<String, CompletableFuture<Optional<RemoteLicenseInformation>>> definitions) {
+    this.http = http;
+    this.definitionsEndpoint = definitionsEndpoint;
+    this.searches = searches;
+    this.definitions = definitions;
+  }
+
+  /**
+   * Get a client that executes new requests with another HTTP client, but shares all requests and
+   * results with this client.
+   *
+   * @param http The HTTP client for new requests.
+   * @return The client.
+   */
+  public ClearlyDefinedClient withHttp(OkHttpClient http) {
+    return new ClearlyDefinedClient(http, definitionsEndpoint, searches, definitions);
+  }
+
+  /**
+   * Search for all definition IDs matching the given pattern.
+   *
+   * @param pattern The search pattern, e.g. "groupId/artifactId/version".
+   * @return The found definition IDs, or an empty list if the search was not successful.
+   */
+  public CompletableFuture<List<String>> search(String pattern) {
+    CompletableFuture<List<String>> result = searches.computeIfAbsent(pattern, key -> {
+      HttpUrl findUrl = definitionsEndpoint.newBuilder().addQueryParameter("pattern", key).build();
+      return execute(new Request.Builder().url(findUrl).build(), body -> {
+        List<String> ids = new LinkedList<>();
+        if (body.isPresent()) {
+          for (Object foundArtifactId : new JSONArray(body.get())) {
+            if (foundArtifactId instanceof String) {
+              ids.add((String) foundArtifactId);
+            }
+          }
+        }
+        return ids;
+      });
+    });
+    forgetOnFailure(searches, pattern, result);
+    return result;
+  }
+
+  /**
+   * Search for all definitions matching the given pattern and get their declared license
+   * information. The definitions of the search results are requested in parallel.
+   *
+   * @param pattern The search pattern, e.g. "groupId/artifactId/version".
+   * @return The license information of all found definitions that have a declared license, in the
+   *         order of the search result.
+   */
+  public CompletableFuture<List<RemoteLicenseInformation>> findLicenses(String pattern) {
+    return search(pattern).thenCompose(ids -> {
+      List<CompletableFuture<Optional<RemoteLicenseInformation>>> found =
+          ids.stream().map(this::definition).collect(Collectors.toList());
+      return CompletableFuture.allOf(found.toArray(new CompletableFuture<?>[found.size()]))
+          .thenApply(finished -> found.stream().map(CompletableFuture::join)
+              .filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList()));
+    });
+  }
+
+  /**
+   * Get the declared license information for a definition ID. Calls for an ID that has already
+   * been requested share the same result.
+   *
+   * @param id The definition ID as returned by {@link #search(String)}.
+   * @return The license information, if the definition has a declared license.
+   */
+  public CompletableFuture<Optional<RemoteLicenseInformation>> definition(String id) {
+    CompletableFuture<Optional<RemoteLicenseInformation>> result =
+        definitions.computeIfAbsent(id, key -> {
+          HttpUrl artifactUrl =
+              definitionsEndpoint.newBuilder().addEncodedPathSegment(key).build();
+          return execute(new Request.Builder().url(artifactUrl).build(),
+              body -> body.flatMap(b -> parseDefinition(new JSONObject(b))));
+        });
+    forgetOnFailure(definitions, id, result);
+    return result;
+  }
+
+  /**
+   * Fetch the definitions for the given IDs with the batch endpoint of ClearlyDefined, which
+   * accepts a list of coordinates. Later calls to {@link #definition(String)} for these IDs are
+   * answered from the fetched data. IDs that have already been requested are not fetched again.
+   *
+   * @param ids The definition IDs to fetch.
+   * @param batchSize The maximum number of IDs per request.
+   * @return A future that is completed when all batches have been fetched.
+   */
+  public CompletableFuture<Void> fetchDefinitions(Collection<String> ids, int batchSize) {
+    List<CompletableFuture<Void>> requests = new LinkedList<>();
+    Map<String, CompletableFuture<Optional<RemoteLicenseInformation>>> batch =
+        new LinkedHashMap<>();
+    for (String id : ids) {
+      CompletableFuture<Optional<RemoteLicenseInformation>> definition = new CompletableFuture<>();
+      if (definitions.putIfAbsent(id, definition) == null) {
+        batch.put(id, definition);
+        if (batch.size() >= batchSize) {
+          requests.add(fetchBatch(batch));
+          batch = new LinkedHashMap<>();
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      requests.add(fetchBatch(batch));
+    }
+    return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[requests.size()]));
+  }
+
+  private CompletableFuture<Void> fetchBatch(
+      Map<String, CompletableFuture<Optional<RemoteLicenseInformation>>> batch) {
+    // The list of files is not needed and can be very large
+    HttpUrl batchUrl =
+        definitionsEndpoint.newBuilder().addQueryParameter("expand", "-files").build();
+    RequestBody requestBody = RequestBody.create(new JSONArray(batch.keySet()).toString(), JSON);
+
+    CompletableFuture<Void> result =
+        execute(new Request.Builder().url(batchUrl).post(requestBody).build(), body -> {
+          if (!body.isPresent()) {
+            throw new IllegalStateException(
+                "Fetching " + batch.size() + " definitions from " + batchUrl + " failed.");
+          }
+          // The result is an object with the requested coordinates as keys
+          JSONObject root = new JSONObject(body.get());
+          for (Map.Entry<String, CompletableFuture<Optional<RemoteLicenseInformation>>> e : batch
+              .entrySet()) {
+            JSONObject definition = root.optJSONObject(e.getKey());
+            if (definition == null) {
+              e.getValue().complete(Optional.empty());
+            } else {
+              e.getValue().complete(parseDefinition(definition));
+            }
+          }
+          return null;
+        });
+    return result.whenComplete((value, ex) -> {
+      if (ex != null) {
+        // Allow the definitions of a failed batch to be requested again
+        for (Map.Entry<String, CompletableFuture<Optional<RemoteLicenseInformation>>> e : batch
+            .entrySet()) {
+          if (e.getValue().completeExceptionally(ex)) {
+            definitions.remove(e.getKey(), e.getValue());
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Extract the declared license information from a definition.
+   *
+   * @param root The JSON definition object.
+   * @return The license information, if the definition has a declared license.
+   */
+  public static Optional<RemoteLicenseInformation> parseDefinition(JSONObject root) {
+    // only use explicitly declared licenses
+    if (root.has("licensed")) {
+      JSONObject licensedObject = root.getJSONObject("licensed");
+      if (licensedObject.has("declared")) {
+
+        RemoteLicenseInformation result = new RemoteLicenseInformation();
+        result.setSpdx(licensedObject.getString("declared"));
+
+        if (root.has("scores")) {
+          JSONObject scores = root.getJSONObject("scores");
+          if (scores.has("effective")) {
+            result.setScore(scores.getLong("effective"));
+          }
+        }
+
+        // also get the authors by using the attribution data
+        if (licensedObject.has("facets")) {
+          JSONObject facets = licensedObject.getJSONObject("facets");
+          if (facets != null) {
+            if (facets.has("core")) {
+              JSONObject core = facets.getJSONObject("core");
+              if (core.has("attribution")) {
+                JSONObject attribution = core.getJSONObject("attribution");
+                if (attribution.has("parties")) {
+                  JSONArray parties = attribution.getJSONArray("parties");
+                  for (Object p : parties) {
+                    if (p instanceof String) {
+                      result.getAuthors().add((String) p);
+                    }
+                  }
+                }
+              }
+            }
+          }
+        }
+
+        return Optional.of(result);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Don't keep failed requests, so they can be tried again.
+   */
+  private static <T> void forgetOnFailure(Map<String, CompletableFuture<T>> requests, String key,
+      CompletableFuture<T> request) {
+    request.whenComplete((value, ex) -> {
+      if (ex != null) {
+        requests.remove(key, request);
+      }
+    });
+  }
+
+  /**
+   * Execute an asynchronous request and convert the body of the response. Only a response with
+   * status code 404 means that there is no data. Any other error, e.g. when the rate limit is
+   * exceeded or the server is not available, completes the request exceptionally, so the result
+   * is not mistaken for missing data and not kept.
+   *
+   * @param request The request to execute.
+   * @param converter Gets the response body if the status code was 200 and an empty value if it
+   *        was 404.
+   */
+  private <T> CompletableFuture<T> execute(Request request,
+      Function<Optional<String>, T> converter) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    http.newCall(request).enqueue(new Callback() {
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        try (ResponseBody body = response.body()) {
+          if (response.code() == 200 && body != null) {
+            result.complete(converter.apply(Optional.of(body.string())));
+          } else if (response.code() == 404) {
+            result.complete(converter.apply(Optional.empty()));
+          } else {
+            result.completeExceptionally(new IOException("Request to " + request.url()
+                + " failed with status code " + response.code()));
+          }
+        } catch (IOException | RuntimeException ex) {
+          result.completeExceptionally(ex);
+        }
+      }
+
+      @Override
+      public void onFailure(Call call, IOException ex) {
+        result.completeExceptionally(ex);
+      }
+    });
+    return result;
+  }
+}
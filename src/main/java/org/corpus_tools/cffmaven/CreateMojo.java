@@ -1,19 +1,26 @@
 package org.corpus_tools.cffmaven;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Developer;
@@ -21,13 +28,8 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.project.ProjectBuildingRequest;
 import org.snakeyaml.engine.v2.api.Dump;
-import org.snakeyaml.engine.v2.api.DumpSettings;
-import org.snakeyaml.engine.v2.api.Load;
-import org.snakeyaml.engine.v2.api.LoadSettings;
-import org.snakeyaml.engine.v2.common.FlowStyle;
 
 /**
  * Create Citation File Format with references from the dependencies defined via Maven.
@@ -49,34 +51,68 @@ public class CreateMojo extends AbstractCffMojo {
   @Parameter
   private String dateReleased;
 
+  @Parameter(defaultValue = "1")
+  private int resolverThreads;
+
+  @Parameter(defaultValue = "false")
+  private boolean incremental;
+
+  @Parameter(defaultValue = "false")
+  private boolean skipIfUnchanged;
+
+  @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+  private File buildDirectory;
+
   /**
    * {@inheritDoc}
    */
   public void execute() throws MojoExecutionException {
+    Metrics.Timer total = getMetrics().start("total");
+    try {
+      createCitationFile();
+    } finally {
+      total.close();
+      reportMetrics("create");
+      closeCache();
+    }
+  }
+
+  private void createCitationFile() throws MojoExecutionException {
+    // Check as early as possible if anything changed, before any file or cache is read
+    Optional<Fingerprint> stamp = Optional.empty();
+    boolean unchanged = false;
+    if (skipIfUnchanged) {
+      try (Metrics.Timer timer = getMetrics().start("stamp")) {
+        Fingerprint current = createStamp();
+        Optional<Fingerprint> previous = Fingerprint.read(getStampFile());
+        unchanged = previous.isPresent() && current.canReuse(previous.get(), output);
+        stamp = Optional.of(current);
+      } catch (IOException ex) {
+        getLog().warn("Could not check if the citation file is up to date.", ex);
+      }
+    }
+    if (unchanged) {
+      getLog().info("Dependencies and configuration have not changed, skipping creation of "
+          + output.getPath());
+      return;
+    }
 
-    Load yamlLoad = new Load(LoadSettings.builder().build());
     Map<String, Object> cff = new LinkedHashMap<>();
     cff.putIfAbsent("cff-version", "1.2.0");
     cff.putIfAbsent("type", "software");
 
+    // The existing references of the input file are not loaded, only their titles
+    Optional<CffInputReader> inputReader = Optional.empty();
     if (input != null && input.isFile()) {
-      try (FileInputStream inputFile = new FileInputStream(input)) {
+      try {
         getLog().info("Reading input CFF file " + input.getPath());
-        Object loaded = yamlLoad.loadFromInputStream(inputFile);
-        if (loaded instanceof Map<?, ?>) {
-          for (Map.Entry<?, ?> e : ((Map<?, ?>) loaded).entrySet()) {
-            if (e.getKey() instanceof String) {
-              cff.put((String) e.getKey(), e.getValue());
-            }
-          }
-        }
+        inputReader = Optional.of(new CffInputReader(input, REFERENCES, TITLE));
+        cff.putAll(inputReader.get().getHeader());
       } catch (Throwable ex) {
         getLog().error("Error loading input YAML file " + input.getPath(), ex);
       }
     }
 
-    ProjectBuildingRequest projectBuildingRequest = createProjectBuildingRequest();
-
     // set basic properties like title
     cff.putIfAbsent("message", "If you use this software, please cite it as below.");
     cff.putIfAbsent(TITLE, project.getName());
@@ -114,69 +150,218 @@ public class CreateMojo extends AbstractCffMojo {
     }
 
 
-    // get existing references and add new ones to the list
-    List<Map<String, Object>> references = mapExistingReferences(cff.get(REFERENCES));
-    Set<String> existingTitles = references.stream().map(ref -> ref.get(TITLE))
-        .filter(title -> title != null).map(title -> title.toString()).collect(Collectors.toSet());
+    // get the titles of the existing references to skip them
+    Set<String> existingTitles =
+        inputReader.map(CffInputReader::getTitles).orElse(Collections.emptySet());
 
+    // The new references are sorted by their title, so they are collected before writing them
     TreeMap<String, Map<String, Object>> newReferences = new TreeMap<>();
 
-    for (Artifact artifact : project.getArtifacts()) {
-      if (!isIgnored(artifact)) {
-        try {
-          Map<String, Object> newRef = createReference(artifact, projectBuildingRequest);
-          String newRefTitle = (String) newRef.getOrDefault(TITLE, "");
-          if (skipExistingDependencies && existingTitles.contains(newRefTitle)) {
-            getLog().info("Ignoring existing dependency " + artifact.toString());
-          } else if (!newReferences.containsKey(newRefTitle)) {
-            getLog().info("Adding reference " + artifact.toString());
-            newReferences.put(newRefTitle, newRef);
-          }
-        } catch (ProjectBuildingException ex) {
-          getLog().error("Can not resolve dependency artifact " + artifact.toString(), ex);
+    List<Artifact> artifacts = project.getArtifacts().stream()
+        .filter(artifact -> !isIgnored(artifact)).collect(Collectors.toList());
+
+    Optional<Fingerprint> fingerprint = Optional.empty();
+    Map<Artifact, Map<String, Object>> reusedReferences = new HashMap<>();
+    if (incremental) {
+      try (Metrics.Timer timer = getMetrics().start("fingerprint")) {
+        Fingerprint current = createFingerprint(cff, artifacts);
+        Optional<Fingerprint> previous = Fingerprint.read(getFingerprintFile());
+        if (previous.isPresent() && current.isUpToDate(previous.get(), output)) {
+          getLog().info("Citation file " + output.getPath() + " is up to date");
+          return;
+        } else if (previous.isPresent() && current.canReuse(previous.get(), output)) {
+          reusedReferences = findReusableReferences(current, previous.get(), artifacts);
+          getLog().info(
+              "Reusing " + reusedReferences.size() + " references from " + output.getPath());
         }
+        fingerprint = Optional.of(current);
+      } catch (IOException ex) {
+        getLog().warn("Could not compare with the previous run, creating all references.", ex);
       }
     }
 
-    // add all new references to the list
-    for (Map<String, Object> ref : newReferences.values()) {
-      references.add(ref);
-    }
+    final Optional<Fingerprint> finalFingerprint = fingerprint;
+    AtomicInteger addedArtifacts = new AtomicInteger();
+    BiConsumer<Artifact, Map<String, Object>> addReference = (artifact, newRef) -> {
+      addedArtifacts.incrementAndGet();
+      String newRefTitle = (String) newRef.getOrDefault(TITLE, "");
+      if (skipExistingDependencies && existingTitles.contains(newRefTitle)) {
+        getLog().info("Ignoring existing dependency " + artifact.toString());
+        finalFingerprint.ifPresent(f -> f.setExistingReference(artifact, newRefTitle));
+      } else if (!newReferences.containsKey(newRefTitle)) {
+        getLog().info("Adding reference " + artifact.toString());
+        newReferences.put(newRefTitle, newRef);
+        finalFingerprint.ifPresent(f -> f.setWrittenReference(artifact, newRefTitle));
+      } else {
+        finalFingerprint.ifPresent(f -> f.setDuplicateReference(artifact, newRefTitle));
+      }
+    };
 
-    // Remove references first, then add them again to place them at the end of the file.s
-    cff.remove(REFERENCES);
-    cff.put(REFERENCES, references);
+    // Only create the references that can't be reused, but add all in the order of the artifacts
+    final Map<Artifact, Map<String, Object>> reused = reusedReferences;
+    List<Artifact> missingArtifacts =
+        artifacts.stream().filter(a -> !reused.containsKey(a)).collect(Collectors.toList());
+    Iterator<Artifact> pending = artifacts.iterator();
+    ProjectBuildingRequest projectBuildingRequest = createProjectBuildingRequest();
+    try (Metrics.Timer timer = getMetrics().start("references")) {
+      createReferences(missingArtifacts, projectBuildingRequest, resolverThreads,
+          (artifact, newRef) -> {
+            addReusedReferences(pending, artifact, reused, addReference);
+            addReference.accept(artifact, newRef);
+          });
+      addReusedReferences(pending, null, reused, addReference);
+    }
 
-    // Write out the YAML file again
-    DumpSettings dumpSettings = DumpSettings.builder().setDefaultFlowStyle(FlowStyle.BLOCK).build();
-    Dump dumpYaml = new Dump(dumpSettings);
-    try (FileWriter outWriter = new FileWriter(output)) {
-      String yamlAsString = dumpYaml.dumpToString(cff);
-      outWriter.write(yamlAsString);
+    // Write out the YAML file again, the references are placed at the end of the file
+    boolean written = false;
+    try (Metrics.Timer timer = getMetrics().start("write-output");
+        CffWriter writer = new CffWriter(output, cff, REFERENCES)) {
+      if (inputReader.isPresent()) {
+        inputReader.get().copyReferences(writer);
+      }
+      for (Map<String, Object> ref : newReferences.values()) {
+        writer.writeReference(ref);
+      }
+      writer.commit();
+      written = true;
     } catch (IOException ex) {
       getLog().error("Could not write Citation file", ex);
     }
 
-    closeCache();
+    if (fingerprint.isPresent()) {
+      File fingerprintFile = getFingerprintFile();
+      try {
+        if (written) {
+          fingerprint.get().setOutput(output);
+          fingerprint.get().write(fingerprintFile);
+        } else {
+          Files.deleteIfExists(fingerprintFile.toPath());
+        }
+      } catch (IOException ex) {
+        getLog().warn("Could not write fingerprint file " + fingerprintFile.getPath(), ex);
+      }
+    }
+    if (stamp.isPresent()) {
+      // Only skip the next run if the references of all artifacts could be created
+      File stampFile = getStampFile();
+      try {
+        if (written && addedArtifacts.get() == artifacts.size()) {
+          stamp.get().setOutput(output);
+          Files.createDirectories(stampFile.getParentFile().toPath());
+          stamp.get().write(stampFile);
+        } else {
+          Files.deleteIfExists(stampFile.toPath());
+        }
+      } catch (IOException ex) {
+        getLog().warn("Could not write stamp file " + stampFile.getPath(), ex);
+      }
+    }
   }
 
-  private List<Map<String, Object>> mapExistingReferences(Object existingReferences) {
-    List<Map<String, Object>> references = new LinkedList<>();
-    if (existingReferences instanceof List) {
-      for (Object ref : (List<?>) existingReferences) {
-        if (ref instanceof Map) {
-          Map<String, Object> existingRefEntry = new LinkedHashMap<>();
-          for (Map.Entry<?, ?> e : ((Map<?, ?>) ref).entrySet()) {
-            if (e.getKey() instanceof String) {
-              existingRefEntry.put((String) e.getKey(), e.getValue());
-            }
-          }
-          references.add(existingRefEntry);
-        }
+  /**
+   * Convert the CFF content to YAML.
+   * 
+   * @param cff The CFF content.
+   * @return The YAML document.
+   */
+  static String toYaml(Map<String, Object> cff) {
+    return new Dump(CffWriter.createDumpSettings()).dumpToString(cff);
+  }
+
+  private File getFingerprintFile() {
+    return new File(output.getParentFile(), "." + output.getName() + ".fingerprint");
+  }
+
+  private File getStampFile() {
+    return new File(buildDirectory, "cff-maven-plugin/" + output.getName() + ".stamp");
+  }
+
+  /**
+   * Create a fingerprint of everything the output depends on, that can be computed without reading
+   * the input file or any dependency. If it did not change, the output does not need to be
+   * created again.
+   */
+  private Fingerprint createStamp() throws IOException {
+    Fingerprint result = new Fingerprint();
+    addFingerprintConfiguration(result);
+    result.addConfiguration("skipExistingDependencies", skipExistingDependencies);
+    result.addConfiguration("output", output.getAbsolutePath());
+    result.addConfigurationFile("input", input != null && input.isFile() ? input : null);
+    result.addConfiguration("dateReleased", dateReleased == null
+        ? new SimpleDateFormat("yyyy-MM-dd").format(new Date()) : dateReleased);
+    result.addConfiguration("name", project.getName());
+    result.addConfiguration("version", project.getVersion());
+    result.addConfiguration("developers", project.getModel().getDevelopers().stream()
+        .map(Developer::getName).collect(Collectors.toList()));
+    result.addConfiguration("scm", project.getScm() == null ? null : project.getScm().getUrl());
+    List<Artifact> sorted = new ArrayList<>(project.getArtifacts());
+    sorted.sort(Comparator.comparing(Artifact::getId));
+    for (Artifact artifact : sorted) {
+      result.addConfigurationArtifact(artifact);
+    }
+    return result;
+  }
+
+  private Fingerprint createFingerprint(Map<String, Object> cff, List<Artifact> artifacts)
+      throws IOException {
+    Fingerprint result = new Fingerprint();
+    addFingerprintConfiguration(result);
+    result.addConfiguration("skipExistingDependencies", skipExistingDependencies);
+    // The fields are written again if they change, e.g. the release date of each day
+    result.setHeader(toYaml(cff));
+    result.addConfigurationFile("input", input != null && input.isFile() ? input : null);
+    for (Artifact artifact : artifacts) {
+      result.addArtifact(artifact);
+    }
+    return result;
+  }
+
+  /**
+   * Get the references of all unchanged artifacts from the previous output.
+   */
+  private Map<Artifact, Map<String, Object>> findReusableReferences(Fingerprint current,
+      Fingerprint previous, List<Artifact> artifacts) throws IOException {
+    // Only the reused references are read from the previous output
+    Set<String> writtenTitles = new HashSet<>();
+    for (Artifact artifact : artifacts) {
+      current.getWrittenTitle(previous, artifact).ifPresent(writtenTitles::add);
+    }
+    Map<String, Map<String, Object>> previousReferences = writtenTitles.isEmpty()
+        ? Collections.emptyMap()
+        : new CffInputReader(output, REFERENCES, TITLE).getReferences(writtenTitles);
+
+    Map<Artifact, Map<String, Object>> result = new HashMap<>();
+    for (Artifact artifact : artifacts) {
+      Optional<String> writtenTitle = current.getWrittenTitle(previous, artifact);
+      Optional<String> existingTitle = current.getExistingTitle(previous, artifact);
+      if (writtenTitle.isPresent() && previousReferences.containsKey(writtenTitle.get())) {
+        result.put(artifact, previousReferences.get(writtenTitle.get()));
+      } else if (existingTitle.isPresent()) {
+        // Only the title is needed to skip the reference again
+        Map<String, Object> reference = new LinkedHashMap<>();
+        reference.put(TITLE, existingTitle.get());
+        result.put(artifact, reference);
       }
     }
+    return result;
+  }
 
-    return references;
+  /**
+   * Add the reused references of all artifacts up to the given one.
+   */
+  private static void addReusedReferences(Iterator<Artifact> pending, Artifact until,
+      Map<Artifact, Map<String, Object>> reused,
+      BiConsumer<Artifact, Map<String, Object>> addReference) {
+    while (pending.hasNext()) {
+      Artifact artifact = pending.next();
+      if (artifact == until) {
+        return;
+      }
+      Map<String, Object> reference = reused.get(artifact);
+      if (reference != null) {
+        addReference.accept(artifact, reference);
+      }
+    }
   }
 
 }
@@ -0,0 +1,41 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.IOException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.ehcache.Cache;
+
+/**
+ * Exports the cached license information and license texts into the license database file, so
+ * that they can be used in offline mode.
+ */
+@Mojo(name = "export-license-database")
+public class ExportLicenseDatabaseMojo extends AbstractCffMojo {
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    if (licenseDatabase == null) {
+      throw new MojoExecutionException("The licenseDatabase parameter is not configured");
+    }
+    try {
+      // Add to the existing entries, so that several caches can be combined
+      LicenseDatabase database = licenseDatabase.isFile() ? LicenseDatabase.read(licenseDatabase)
+          : new LicenseDatabase();
+      for (Cache.Entry<String, RemoteLicenseInformation> e : getRemoteLicenseCache()) {
+        database.putLicense(e.getKey(), e.getValue());
+      }
+      for (Cache.Entry<String, String> e : getDownloadedLicensesCache()) {
+        database.putLicenseText(e.getKey(), e.getValue());
+      }
+      database.write(licenseDatabase);
+      getLog().info("Exported " + database.getLicenses().size() + " licenses and "
+          + database.getLicenseTexts().size() + " license texts to " + licenseDatabase.getPath());
+    } catch (IOException ex) {
+      throw new MojoExecutionException(
+          "Could not export license database " + licenseDatabase.getPath(), ex);
+    } finally {
+      closeCache();
+    }
+  }
+}
@@ -0,0 +1,406 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the metadata needed for a reference directly from the POM file of an artifact with a
+ * streaming XML parser, which is much faster than building the effective model. The POM files of
+ * the parents are only read for fields that are missing in the POM itself, like the licenses and
+ * developers. Only simple POMs are supported: when a value contains an expression that can not be
+ * resolved, the SCM URL is inherited from a parent or a parent POM is not in the local repository,
+ * no metadata is returned and the effective model has to be built instead. The reader is
+ * thread-safe.
+ */
+public class FastPomReader {
+
+  private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]*)\\}");
+  private static final int MAX_DEPTH = 20;
+
+  /**
+   * Finds the POM files of parent projects.
+   */
+  public interface PomLocator {
+    /**
+     * Find a POM file.
+     *
+     * @param groupId The group ID.
+     * @param artifactId The artifact ID.
+     * @param version The version.
+     * @return The POM file or null if it is not available.
+     */
+    File find(String groupId, String artifactId, String version);
+  }
+
+  private final PomLocator locator;
+  private final Properties userProperties;
+  private final Properties systemProperties;
+  private final Set<String> externalProfileProperties;
+  private final XMLInputFactory factory;
+  private final Map<File, Optional<Pom>> parsed = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new reader.
+   *
+   * @param locator Finds the POM files of parent projects.
+   * @param userProperties The user properties, which override the properties of the POM.
+   * @param systemProperties The system properties, including the environment variables.
+   * @param externalProfileProperties The names of the properties defined by profiles outside of
+   *        the POM files, e.g. in the settings. Expressions with these properties are not resolved.
+   */
+  public FastPomReader(PomLocator locator, Properties userProperties, Properties systemProperties,
+      Set<String> externalProfileProperties) {
+    this.locator = locator;
+    this.userProperties = userProperties;
+    this.systemProperties = systemProperties;
+    this.externalProfileProperties = new HashSet<>(externalProfileProperties);
+    this.factory = XMLInputFactory.newInstance();
+    this.factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    this.factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    this.factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  /**
+   * Read the metadata of an artifact from its POM file.
+   *
+   * @param pomFile The POM file of the artifact.
+   * @return The metadata or an empty optional if the POM is not supported by this reader.
+   */
+  public Optional<PomMetadata> read(File pomFile) {
+    Optional<Pom> pom = parse(pomFile);
+    if (!pom.isPresent() || pom.get().artifactId == null) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new Resolver(pom.get()).resolve());
+    } catch (UnsupportedPomException ex) {
+      return Optional.empty();
+    }
+  }
+
+  private Optional<Pom> parse(File file) {
+    File key = file.getAbsoluteFile();
+    Optional<Pom> result = parsed.get(key);
+    if (result == null) {
+      try (InputStream in = new FileInputStream(key)) {
+        result = Optional.of(parse(in));
+      } catch (IOException | XMLStreamException ex) {
+        result = Optional.empty();
+      }
+      parsed.putIfAbsent(key, result);
+    }
+    return result;
+  }
+
+  private Pom parse(InputStream in) throws XMLStreamException {
+    Pom pom = new Pom();
+    XMLStreamReader reader = factory.createXMLStreamReader(in);
+    try {
+      Deque<String> path = new ArrayDeque<>();
+      StringBuilder text = new StringBuilder();
+      Map<String, String> item = null;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          path.addLast(reader.getLocalName());
+          text.setLength(0);
+          String current = String.join("/", path);
+          if ("project/licenses/license".equals(current)) {
+            item = new LinkedHashMap<>();
+            pom.licenses.add(item);
+          } else if ("project/developers/developer".equals(current)) {
+            item = new LinkedHashMap<>();
+            pom.developers.add(item);
+          }
+        } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+          text.append(reader.getText());
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          String current = String.join("/", path);
+          String name = path.removeLast();
+          String value = text.toString().trim();
+          text.setLength(0);
+          if (path.size() == 1 && current.startsWith("project/")) {
+            pom.setField(name, value);
+          } else if (path.size() == 2 && current.startsWith("project/parent/")) {
+            pom.setParentField(name, value);
+          } else if ("project/scm/url".equals(current)) {
+            pom.scmUrl = value;
+          } else if (path.size() == 3 && (current.startsWith("project/licenses/license/")
+              || current.startsWith("project/developers/developer/"))) {
+            item.put(name, value);
+          } else if (path.size() == 2 && current.startsWith("project/properties/")) {
+            pom.properties.put(name, value);
+          } else if (path.size() == 4
+              && current.startsWith("project/profiles/profile/properties/")) {
+            pom.profileProperties.add(name);
+          }
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return pom;
+  }
+
+  /**
+   * The fields of a single POM file, without inheritance and interpolation.
+   */
+  private static class Pom {
+    private String groupId;
+    private String artifactId;
+    private String version;
+    private String name;
+    private String parentGroupId;
+    private String parentArtifactId;
+    private String parentVersion;
+    private String scmUrl;
+    private final List<Map<String, String>> licenses = new ArrayList<>();
+    private final List<Map<String, String>> developers = new ArrayList<>();
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private final Set<String> profileProperties = new HashSet<>();
+
+    private void setField(String field, String value) {
+      switch (field) {
+        case "groupId":
+          groupId = value;
+          break;
+        case "artifactId":
+          artifactId = value;
+          break;
+        case "version":
+          version = value;
+          break;
+        case "name":
+          name = value;
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void setParentField(String field, String value) {
+      switch (field) {
+        case "groupId":
+          parentGroupId = value;
+          break;
+        case "artifactId":
+          parentArtifactId = value;
+          break;
+        case "version":
+          parentVersion = value;
+          break;
+        default:
+          break;
+      }
+    }
+
+    private boolean hasParent() {
+      return parentGroupId != null || parentArtifactId != null || parentVersion != null;
+    }
+  }
+
+  /**
+   * Thrown when the metadata can not be determined without building the effective model.
+   */
+  private static class UnsupportedPomException extends Exception {
+    private static final long serialVersionUID = 6442281316582734957L;
+  }
+
+  /**
+   * Applies the inheritance and interpolation rules of Maven to the fields needed for the metadata
+   * of a POM. The parents are loaded when they are needed for the first time.
+   */
+  private class Resolver {
+    private final List<Pom> chain = new ArrayList<>();
+    private boolean complete = false;
+
+    Resolver(Pom pom) {
+      chain.add(pom);
+    }
+
+    PomMetadata resolve() throws UnsupportedPomException {
+      Pom pom = chain.get(0);
+      List<PomMetadata.License> licenses = new ArrayList<>();
+      for (Map<String, String> l : inherited(p -> p.licenses)) {
+        licenses.add(new PomMetadata.License(interpolate(l.get("name")),
+            interpolate(l.get("url"))));
+      }
+      List<PomMetadata.Developer> developers = new ArrayList<>();
+      for (Map<String, String> d : inherited(p -> p.developers)) {
+        developers.add(new PomMetadata.Developer(interpolate(d.get("name")),
+            interpolate(d.get("email"))));
+      }
+      String scmUrl = pom.scmUrl;
+      if (scmUrl == null) {
+        // Maven appends the path of the module to an inherited SCM URL
+        for (int i = 1; get(i) != null; i++) {
+          if (get(i).scmUrl != null) {
+            throw new UnsupportedPomException();
+          }
+        }
+      }
+      // The name is not inherited and the artifact ID is used if it is missing
+      return new PomMetadata(pom.name == null ? pom.artifactId : interpolate(pom.name),
+          interpolate(getGroupId()), pom.artifactId, interpolate(getVersion()), licenses,
+          developers, interpolate(scmUrl));
+    }
+
+    private String getGroupId() {
+      Pom pom = chain.get(0);
+      return pom.groupId == null ? pom.parentGroupId : pom.groupId;
+    }
+
+    private String getVersion() {
+      Pom pom = chain.get(0);
+      return pom.version == null ? pom.parentVersion : pom.version;
+    }
+
+    /**
+     * Get the POM at the given position of the parent chain or null if the chain is shorter.
+     */
+    private Pom get(int index) throws UnsupportedPomException {
+      while (!complete && chain.size() <= index) {
+        Pom last = chain.get(chain.size() - 1);
+        if (!last.hasParent()) {
+          complete = true;
+        } else if (chain.size() >= MAX_DEPTH || last.parentGroupId == null
+            || last.parentArtifactId == null || last.parentVersion == null
+            || last.parentGroupId.contains("${") || last.parentVersion.contains("${")) {
+          throw new UnsupportedPomException();
+        } else {
+          File file =
+              locator.find(last.parentGroupId, last.parentArtifactId, last.parentVersion);
+          if (file == null) {
+            throw new UnsupportedPomException();
+          }
+          Optional<Pom> parent = parse(file);
+          if (!parent.isPresent()) {
+            throw new UnsupportedPomException();
+          }
+          chain.add(parent.get());
+        }
+      }
+      return index < chain.size() ? chain.get(index) : null;
+    }
+
+    /**
+     * Get the list of the first POM in the chain where it is not empty, which is how Maven
+     * inherits licenses and developers.
+     */
+    private List<Map<String, String>> inherited(
+        Function<Pom, List<Map<String, String>>> field)
+        throws UnsupportedPomException {
+      for (int i = 0; get(i) != null; i++) {
+        if (!field.apply(get(i)).isEmpty()) {
+          return field.apply(get(i));
+        }
+      }
+      return Collections.emptyList();
+    }
+
+    private String interpolate(String value) throws UnsupportedPomException {
+      return interpolate(value, 0);
+    }
+
+    private String interpolate(String value, int depth) throws UnsupportedPomException {
+      if (value == null || !value.contains("${")) {
+        return value;
+      }
+      if (depth >= MAX_DEPTH) {
+        throw new UnsupportedPomException();
+      }
+      Matcher m = EXPRESSION.matcher(value);
+      StringBuffer result = new StringBuffer();
+      while (m.find()) {
+        m.appendReplacement(result, Matcher.quoteReplacement(evaluate(m.group(1), depth)));
+      }
+      m.appendTail(result);
+      return result.toString();
+    }
+
+    /**
+     * Evaluate an expression in the same order as the model interpolator of Maven: fields of the
+     * model first, then the user properties, the properties of the POMs and the system properties.
+     */
+    private String evaluate(String expression, int depth) throws UnsupportedPomException {
+      String value;
+      if (expression.startsWith("project.") || expression.startsWith("pom.")) {
+        value = getModelField(expression.substring(expression.indexOf('.') + 1));
+      } else if (userProperties.containsKey(expression)) {
+        value = userProperties.getProperty(expression);
+      } else {
+        value = getProperty(expression);
+        if (value == null) {
+          value = systemProperties.getProperty(expression);
+        }
+      }
+      if (value == null) {
+        throw new UnsupportedPomException();
+      }
+      return interpolate(value, depth + 1);
+    }
+
+    private String getModelField(String field) throws UnsupportedPomException {
+      Pom pom = chain.get(0);
+      switch (field) {
+        case "groupId":
+          return getGroupId();
+        case "artifactId":
+          return pom.artifactId;
+        case "version":
+          return getVersion();
+        case "name":
+          return pom.name;
+        case "parent.groupId":
+          return pom.parentGroupId;
+        case "parent.artifactId":
+          return pom.parentArtifactId;
+        case "parent.version":
+          return pom.parentVersion;
+        default:
+          return null;
+      }
+    }
+
+    /**
+     * Get a property, where the properties of a POM override the ones of its parents. Properties
+     * that might be changed by a profile are not supported.
+     */
+    private String getProperty(String key) throws UnsupportedPomException {
+      if (externalProfileProperties.contains(key)) {
+        throw new UnsupportedPomException();
+      }
+      String value = null;
+      for (int i = 0; get(i) != null; i++) {
+        if (get(i).profileProperties.contains(key)) {
+          throw new UnsupportedPomException();
+        }
+        if (value == null) {
+          value = get(i).properties.get(key);
+        }
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,317 @@
+package org.corpus_tools.cffmaven;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Describes all inputs of a generated CITATION.cff file, so that a later run can detect which
+ * references can be reused from the previous output.
+ *
+ * <p>
+ * The fingerprint consists of a hash of the configuration (including the content of the input and
+ * template files), a hash of the generated fields before the references, a hash of the output file
+ * and one hash for each resolved artifact. The generated fields like the release date do not
+ * influence the references, so a change only requires to write the output again. For each
+ * artifact, the title of the reference that was created for it and whether it was written to the
+ * output is stored as well.
+ * </p>
+ */
+public class Fingerprint {
+
+  private static final String CONFIGURATION = "configuration";
+  private static final String HEADER = "header";
+  private static final String OUTPUT = "output";
+  private static final String ARTIFACT_PREFIX = "artifact.";
+  private static final String TITLE_PREFIX = "title.";
+  private static final String EXISTING_PREFIX = "existing.";
+  private static final String DUPLICATE_PREFIX = "duplicate.";
+
+  private final Map<String, String> configuration = new LinkedHashMap<>();
+  private String configurationHash;
+  private String headerHash;
+  private String outputHash;
+  private final Map<String, String> artifacts = new LinkedHashMap<>();
+  private final Map<String, String> titles = new LinkedHashMap<>();
+  private final Map<String, String> existingTitles = new LinkedHashMap<>();
+  private final Map<String, String> duplicateTitles = new LinkedHashMap<>();
+
+  /**
+   * Add a configuration value. Any change to a configuration value invalidates all references.
+   *
+   * @param name The name of the configuration value.
+   * @param value The value, which is converted to a string.
+   */
+  public void addConfiguration(String name, Object value) {
+    configuration.put(name, String.valueOf(value));
+    configurationHash = null;
+  }
+
+  /**
+   * Set the generated fields before the references. In contrast to the configuration, a change
+   * of these fields does not invalidate the references.
+   *
+   * @param header The fields as YAML.
+   */
+  public void setHeader(String header) {
+    headerHash = Hashing.sha256().hashString(header, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Add the content of a file to the configuration. Only the content is used, so files at
+   * different locations with the same content are the same configuration.
+   *
+   * @param name The name of the configuration value.
+   * @param file The file, which might not exist.
+   * @throws IOException If the file can not be read.
+   */
+  public void addConfigurationFile(String name, File file) throws IOException {
+    addConfiguration(name, file == null ? null : hashFile(file));
+  }
+
+  /**
+   * Add a resolved artifact.
+   *
+   * @param artifact The artifact.
+   */
+  public void addArtifact(Artifact artifact) {
+    artifacts.put(artifact.getId(),
+        Hashing.sha256().hashString(describe(artifact), StandardCharsets.UTF_8).toString());
+  }
+
+  /**
+   * Add a resolved artifact to the configuration. In contrast to {@link #addArtifact(Artifact)},
+   * any change of this artifact invalidates all references.
+   *
+   * @param artifact The artifact.
+   */
+  public void addConfigurationArtifact(Artifact artifact) {
+    addConfiguration(ARTIFACT_PREFIX + artifact.getId(), describe(artifact));
+  }
+
+  private static String describe(Artifact artifact) {
+    File file = artifact.getFile();
+    String fileInfo = file == null ? "" : file.getPath() + "|" + file.length() + "|"
+        + file.lastModified();
+    return artifact.toString() + "|" + fileInfo;
+  }
+
+  /**
+   * Remember that the reference for this artifact has been written to the output.
+   *
+   * @param artifact The artifact.
+   * @param title The title of the reference.
+   */
+  public void setWrittenReference(Artifact artifact, String title) {
+    titles.put(artifact.getId(), title);
+  }
+
+  /**
+   * Remember that the reference for this artifact has not been written, because the input file
+   * already contains a reference with the same title.
+   *
+   * @param artifact The artifact.
+   * @param title The title of the reference.
+   */
+  public void setExistingReference(Artifact artifact, String title) {
+    existingTitles.put(artifact.getId(), title);
+  }
+
+  /**
+   * Remember that the reference for this artifact has not been written, because the reference of
+   * another artifact has the same title.
+   *
+   * @param artifact The artifact.
+   * @param title The title of the reference.
+   */
+  public void setDuplicateReference(Artifact artifact, String title) {
+    duplicateTitles.put(artifact.getId(), title);
+  }
+
+  /**
+   * Set the hash of the output file after it has been written.
+   *
+   * @param output The output file.
+   * @throws IOException If the file can not be read.
+   */
+  public void setOutput(File output) throws IOException {
+    this.outputHash = hashFile(output);
+  }
+
+  /**
+   * Check if the previous output can be used as source for references. This is the case if the
+   * configuration is the same and the output file has not been changed since it was written.
+   *
+   * @param previous The fingerprint of the previous run.
+   * @param output The output file.
+   * @return True if references can be reused.
+   * @throws IOException If the output file can not be read.
+   */
+  public boolean canReuse(Fingerprint previous, File output) throws IOException {
+    return previous.outputHash != null
+        && Objects.equals(getConfigurationHash(), previous.getConfigurationHash())
+        && Objects.equals(previous.outputHash, hashFile(output));
+  }
+
+  /**
+   * Check if the previous output can be kept as it is, because neither the configuration, the
+   * generated fields nor the artifacts have been changed and the references of all artifacts could
+   * be created.
+   *
+   * @param previous The fingerprint of the previous run.
+   * @param output The output file.
+   * @return True if the output is up to date.
+   * @throws IOException If the output file can not be read.
+   */
+  public boolean isUpToDate(Fingerprint previous, File output) throws IOException {
+    if (!canReuse(previous, output) || !Objects.equals(headerHash, previous.headerHash)
+        || !artifacts.equals(previous.artifacts)) {
+      return false;
+    }
+    // All artifacts must have been resolved successfully in the previous run
+    for (String id : artifacts.keySet()) {
+      if (!previous.titles.containsKey(id) && !previous.existingTitles.containsKey(id)
+          && !previous.duplicateTitles.containsKey(id)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the title of the reference written for this artifact in the previous run, if the artifact
+   * has not been changed.
+   *
+   * @param previous The fingerprint of the previous run.
+   * @param artifact The artifact.
+   * @return The title of the reference in the previous output.
+   */
+  public Optional<String> getWrittenTitle(Fingerprint previous, Artifact artifact) {
+    if (isUnchanged(previous, artifact)) {
+      return Optional.ofNullable(previous.titles.get(artifact.getId()));
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Get the title of the reference for this artifact in the previous run, if the artifact has not
+   * been changed and the reference was not written because the input file already contains it.
+   *
+   * @param previous The fingerprint of the previous run.
+   * @param artifact The artifact.
+   * @return The title of the reference in the input file.
+   */
+  public Optional<String> getExistingTitle(Fingerprint previous, Artifact artifact) {
+    if (isUnchanged(previous, artifact)) {
+      return Optional.ofNullable(previous.existingTitles.get(artifact.getId()));
+    }
+    return Optional.empty();
+  }
+
+  private boolean isUnchanged(Fingerprint previous, Artifact artifact) {
+    String hash = artifacts.get(artifact.getId());
+    return hash != null && hash.equals(previous.artifacts.get(artifact.getId()));
+  }
+
+  /**
+   * Get a hash of all configuration values.
+   *
+   * @return The hash as hexadecimal string.
+   */
+  public String getConfigurationHash() {
+    if (configurationHash == null) {
+      StringBuilder sb = new StringBuilder();
+      for (Map.Entry<String, String> e : configuration.entrySet()) {
+        sb.append(e.getKey()).append('=').append(e.getValue()).append('\n');
+      }
+      configurationHash = Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+    }
+    return configurationHash;
+  }
+
+  /**
+   * Read a fingerprint from a file.
+   *
+   * @param file The file to read.
+   * @return The fingerprint, or empty if the file does not exist.
+   * @throws IOException If the file can not be read.
+   */
+  public static Optional<Fingerprint> read(File file) throws IOException {
+    if (!file.isFile()) {
+      return Optional.empty();
+    }
+    Properties props = new Properties();
+    try (InputStream is = new FileInputStream(file)) {
+      props.load(is);
+    }
+    Fingerprint result = new Fingerprint();
+    result.configurationHash = props.getProperty(CONFIGURATION);
+    result.headerHash = props.getProperty(HEADER);
+    result.outputHash = props.getProperty(OUTPUT);
+    for (String key : props.stringPropertyNames()) {
+      if (key.startsWith(ARTIFACT_PREFIX)) {
+        result.artifacts.put(key.substring(ARTIFACT_PREFIX.length()), props.getProperty(key));
+      } else if (key.startsWith(TITLE_PREFIX)) {
+        result.titles.put(key.substring(TITLE_PREFIX.length()), props.getProperty(key));
+      } else if (key.startsWith(EXISTING_PREFIX)) {
+        result.existingTitles.put(key.substring(EXISTING_PREFIX.length()),
+            props.getProperty(key));
+      } else if (key.startsWith(DUPLICATE_PREFIX)) {
+        result.duplicateTitles.put(key.substring(DUPLICATE_PREFIX.length()),
+            props.getProperty(key));
+      }
+    }
+    return Optional.of(result);
+  }
+
+  /**
+   * Write this fingerprint to a file.
+   *
+   * @param file The file to write.
+   * @throws IOException If the file can not be written.
+   */
+  public void write(File file) throws IOException {
+    Properties props = new Properties();
+    props.setProperty(CONFIGURATION, getConfigurationHash());
+    if (headerHash != null) {
+      props.setProperty(HEADER, headerHash);
+    }
+    if (outputHash != null) {
+      props.setProperty(OUTPUT, outputHash);
+    }
+    for (Map.Entry<String, String> e : artifacts.entrySet()) {
+      props.setProperty(ARTIFACT_PREFIX + e.getKey(), e.getValue());
+    }
+    for (Map.Entry<String, String> e : titles.entrySet()) {
+      props.setProperty(TITLE_PREFIX + e.getKey(), e.getValue());
+    }
+    for (Map.Entry<String, String> e : existingTitles.entrySet()) {
+      props.setProperty(EXISTING_PREFIX + e.getKey(), e.getValue());
+    }
+    for (Map.Entry<String, String> e : duplicateTitles.entrySet()) {
+      props.setProperty(DUPLICATE_PREFIX + e.getKey(), e.getValue());
+    }
+    try (OutputStream os = new FileOutputStream(file)) {
+      props.store(os, "Generated by the cff-maven-plugin, do not edit");
+    }
+  }
+
+  private static String hashFile(File file) throws IOException {
+    if (file == null || !file.isFile()) {
+      return "";
+    }
+    return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+  }
+}
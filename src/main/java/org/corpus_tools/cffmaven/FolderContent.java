@@ -0,0 +1,156 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The files that should be written to a folder. The files are collected first and then either
+ * written or synchronized with the existing content of the folder.
+ */
+public class FolderContent {
+
+  private final Map<Path, byte[]> files = new LinkedHashMap<>();
+  private final Set<Path> folders = new HashSet<>();
+
+  /**
+   * Add a file.
+   *
+   * @param file The file.
+   * @param content The content of the file.
+   */
+  public void add(File file, byte[] content) {
+    Path path = normalize(file);
+    files.put(path, content);
+    // Remember all folders containing the file, so checking a folder does not need a scan
+    Path parent = path.getParent();
+    while (parent != null && folders.add(parent)) {
+      parent = parent.getParent();
+    }
+  }
+
+  /**
+   * Check if a file has been added.
+   *
+   * @param file The file.
+   * @return True if the file was added.
+   */
+  public boolean contains(File file) {
+    return files.containsKey(normalize(file));
+  }
+
+  /**
+   * Check if any file has been added to the folder or one of its sub-folders.
+   *
+   * @param folder The folder.
+   * @return True if the folder contains files.
+   */
+  public boolean hasFilesIn(File folder) {
+    return folders.contains(normalize(folder));
+  }
+
+  /**
+   * Write all files, without checking the existing content of the folder.
+   *
+   * @param log The log to report errors to.
+   */
+  public void write(Log log) {
+    for (Map.Entry<Path, byte[]> e : files.entrySet()) {
+      writeFile(e.getKey(), e.getValue(), log);
+    }
+  }
+
+  /**
+   * Synchronize the folder with the added files. Only new or changed files are written, so
+   * unchanged files keep their modification time. If stale content should be removed, the
+   * sub-folders without any added file are deleted, as well as the files that have not been added
+   * in the other sub-folders. Files directly in the folder are always kept.
+   *
+   * @param root The folder to synchronize.
+   * @param removeStale If true, folders and files that have not been added are removed.
+   * @param log The log to report changes and errors to.
+   * @throws IOException If the existing content of the folder can not be listed.
+   */
+  public void sync(File root, boolean removeStale, Log log) throws IOException {
+    int written = 0;
+    int unchanged = 0;
+    for (Map.Entry<Path, byte[]> e : files.entrySet()) {
+      File file = e.getKey().toFile();
+      if (file.isFile() && file.length() == e.getValue().length
+          && Arrays.equals(Files.readAllBytes(e.getKey()), e.getValue())) {
+        unchanged++;
+      } else {
+        if (file.isDirectory()) {
+          FileUtils.deleteDirectory(file);
+        }
+        writeFile(e.getKey(), e.getValue(), log);
+        written++;
+      }
+    }
+
+    int removed = 0;
+    File[] children = root.listFiles();
+    if (removeStale && children != null) {
+      for (File child : children) {
+        if (!child.isDirectory()) {
+          continue;
+        }
+        if (!hasFilesIn(child)) {
+          // The folder of an artifact that is not part of the project anymore
+          log.info("Removing stale third party folder " + child.getPath());
+          FileUtils.deleteDirectory(child);
+          removed++;
+        } else {
+          // Remove the files that are not created for this artifact anymore and the then empty
+          // folders
+          List<Path> existing;
+          try (Stream<Path> walk = Files.walk(normalize(child))) {
+            existing = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+          }
+          for (Path p : existing) {
+            if (Files.isDirectory(p)) {
+              if (!folders.contains(p)) {
+                Files.delete(p);
+              }
+            } else if (!files.containsKey(p)) {
+              log.info("Removing stale file " + p);
+              Files.delete(p);
+              removed++;
+            }
+          }
+        }
+      }
+    }
+    log.info("Synchronized third party folder " + root.getPath() + ": " + written + " written, "
+        + unchanged + " unchanged, " + removed + " removed");
+  }
+
+  private static void writeFile(Path path, byte[] content, Log log) {
+    File parent = path.toFile().getParentFile();
+    if (parent.isDirectory() || parent.mkdirs()) {
+      try {
+        Files.write(path, content);
+      } catch (IOException ex) {
+        log.error("Writing file " + path + " failed.", ex);
+      }
+    } else {
+      log.error("Could not create folder " + parent.getPath());
+    }
+  }
+
+  private static Path normalize(File file) {
+    return file.toPath().toAbsolutePath().normalize();
+  }
+}
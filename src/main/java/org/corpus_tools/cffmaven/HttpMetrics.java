@@ -0,0 +1,85 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.HttpUrl;
+
+/**
+ * Counts the HTTP calls, received bytes and call durations of all HTTP clients of the plugin.
+ * The HTTP clients can be shared by all modules of a build, so each call is added to the metrics
+ * of all plugin executions that are running at the moment.
+ */
+public class HttpMetrics implements EventListener.Factory {
+
+  private final Set<Metrics> active = new CopyOnWriteArraySet<>();
+
+  public void register(Metrics metrics) {
+    active.add(metrics);
+  }
+
+  public void unregister(Metrics metrics) {
+    active.remove(metrics);
+  }
+
+  @Override
+  public EventListener create(Call call) {
+    return new CallListener(getPhase(call.request().url()));
+  }
+
+  /**
+   * Get the name of the phase for a request, depending on whether it is a search or a definition
+   * request to Clearly Defined or a license download.
+   */
+  private static String getPhase(HttpUrl url) {
+    if (url.pathSegments().contains("definitions")) {
+      if (url.queryParameter("pattern") != null) {
+        return "http.clearlydefined-search";
+      } else {
+        return "http.clearlydefined-definitions";
+      }
+    }
+    return "http.license-download";
+  }
+
+  private class CallListener extends EventListener {
+    private final String phase;
+    private long start;
+
+    CallListener(String phase) {
+      this.phase = phase;
+    }
+
+    @Override
+    public void callStart(Call call) {
+      start = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+      for (Metrics m : active) {
+        m.add("http.bytesReceived", byteCount);
+      }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+      finished("http.calls");
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+      finished("http.failedCalls");
+    }
+
+    private void finished(String counter) {
+      long duration = System.nanoTime() - start;
+      for (Metrics m : active) {
+        m.increment(counter);
+        m.record(phase, duration);
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.IOException;
+import java.util.Map;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * Imports the license information and license texts from the license database file into the
+ * cache, e.g. to prepare the cache of a build server.
+ */
+@Mojo(name = "import-license-database")
+public class ImportLicenseDatabaseMojo extends AbstractCffMojo {
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    if (licenseDatabase == null) {
+      throw new MojoExecutionException("The licenseDatabase parameter is not configured");
+    }
+    try {
+      LicenseDatabase database = LicenseDatabase.read(licenseDatabase);
+      for (Map.Entry<String, RemoteLicenseInformation> e : database.getLicenses().entrySet()) {
+        getRemoteLicenseCache().put(e.getKey(), e.getValue());
+      }
+      for (Map.Entry<String, String> e : database.getLicenseTexts().entrySet()) {
+        getDownloadedLicensesCache().put(e.getKey(), e.getValue());
+      }
+      getLog().info("Imported " + database.getLicenses().size() + " licenses and "
+          + database.getLicenseTexts().size() + " license texts from "
+          + licenseDatabase.getPath());
+    } catch (IOException ex) {
+      throw new MojoExecutionException(
+          "Could not import license database " + licenseDatabase.getPath(), ex);
+    } finally {
+      closeCache();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The entries of a JAR file that are needed to create references and third party folders: the
+ * content of all "pom.properties" files and the names of all license, notice and about files. The
+ * content of these files is only read when it is needed, so it is neither kept in memory nor in
+ * the persistent cache.
+ */
+public class JarIndex implements Serializable {
+
+  private static final long serialVersionUID = -5215623371264862455L;
+
+  /**
+   * A third party file in the JAR.
+   */
+  public static class Entry implements Serializable {
+    private static final long serialVersionUID = 2838036806811385962L;
+
+    private final String name;
+    private final String path;
+
+    /**
+     * Create a new entry.
+     *
+     * @param name The name of the entry in the JAR.
+     * @param path The path of the file in the JAR, without a leading "META-INF/".
+     */
+    public Entry(String name, String path) {
+      this.name = name;
+      this.path = path;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * Read the content of the file.
+     *
+     * @param jar The opened JAR file this entry belongs to.
+     * @return The content of the file.
+     * @throws IOException If the entry can not be read or does not exist anymore.
+     */
+    public byte[] read(ZipFile jar) throws IOException {
+      ZipEntry entry = jar.getEntry(name);
+      if (entry == null) {
+        throw new IOException("Entry " + name + " not found in " + jar.getName());
+      }
+      try (InputStream in = jar.getInputStream(entry)) {
+        return in.readAllBytes();
+      }
+    }
+  }
+
+  private final ArrayList<Properties> pomProperties = new ArrayList<>();
+  private final ArrayList<Entry> thirdPartyFiles = new ArrayList<>();
+
+  void addPomProperties(Properties properties) {
+    pomProperties.add(properties);
+  }
+
+  void addThirdPartyFile(Entry entry) {
+    thirdPartyFiles.add(entry);
+  }
+
+  /**
+   * Get the content of all "pom.properties" files, in the order of the entries in the JAR.
+   *
+   * @return The properties.
+   */
+  public List<Properties> getPomProperties() {
+    return Collections.unmodifiableList(pomProperties);
+  }
+
+  /**
+   * Get all license, notice and about files, in the order of the entries in the JAR.
+   *
+   * @return The files.
+   */
+  public List<Entry> getThirdPartyFiles() {
+    return Collections.unmodifiableList(thirdPartyFiles);
+  }
+}
@@ -0,0 +1,110 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.ehcache.Cache;
+
+/**
+ * Reads the entries needed from JAR files. Each JAR file is only read once and the resulting
+ * {@link JarIndex} is reused for all later requests. The inspector is thread-safe.
+ */
+public class JarInspector {
+
+  private static final Pattern INCLUDE_THIRD_PARTY_FILE_PATTERN =
+      Pattern.compile("(meta-info/)?((notice|dependencies|about|license)"
+          + "(\\.md|\\.txt|\\.html|\\.rst)?)|(about_files/.+)", Pattern.CASE_INSENSITIVE);
+
+  private final Map<File, JarIndex> indexes = new ConcurrentHashMap<>();
+
+  /**
+   * Get the index for a JAR file, reading the file if it has not been inspected yet.
+   *
+   * @param file The JAR file.
+   * @return The index of the JAR file.
+   * @throws IOException If the file can not be read or is not a valid ZIP file.
+   */
+  public JarIndex inspect(File file) throws IOException {
+    return inspect(file, null);
+  }
+
+  /**
+   * Get the index for a JAR file. If the file has not been inspected yet, the index is taken from
+   * the given persistent cache. Only when the JAR file is not in the cache or has been changed
+   * since it was added to the cache, the file is read.
+   *
+   * @param file The JAR file.
+   * @param persistentIndex A cache for the indexes of JAR files, or null if not available.
+   * @return The index of the JAR file.
+   * @throws IOException If the file can not be read or is not a valid ZIP file.
+   */
+  public JarIndex inspect(File file, Cache<String, JarIndex> persistentIndex) throws IOException {
+    try {
+      return indexes.computeIfAbsent(file.getAbsoluteFile(), key -> {
+        try {
+          if (persistentIndex == null) {
+            return createIndex(key);
+          }
+          String cacheKey = getCacheKey(key);
+          JarIndex result = persistentIndex.get(cacheKey);
+          if (result == null) {
+            result = createIndex(key);
+            persistentIndex.put(cacheKey, result);
+          }
+          return result;
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * The key of a JAR file in the persistent cache, which changes when the file is modified.
+   */
+  private static String getCacheKey(File file) {
+    return file.getPath() + "|" + file.length() + "|" + file.lastModified();
+  }
+
+  /**
+   * Read all needed entries of a JAR file in a single pass.
+   *
+   * @param file The JAR file.
+   * @return A new index.
+   * @throws IOException If the file can not be read or is not a valid ZIP file.
+   */
+  public static JarIndex createIndex(File file) throws IOException {
+    JarIndex result = new JarIndex();
+    try (ZipFile artifactFile = new ZipFile(file)) {
+      Enumeration<? extends ZipEntry> entries = artifactFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry currentEntry = entries.nextElement();
+        if (currentEntry.getName().endsWith("/pom.properties")) {
+          try (InputStream propertyInputStream = artifactFile.getInputStream(currentEntry)) {
+            Properties props = new Properties();
+            props.load(propertyInputStream);
+            result.addPomProperties(props);
+          }
+        } else {
+          String entryPath =
+              currentEntry.getName().replace('\\', '/').replaceFirst("^META-INF/", "");
+          if (!entryPath.contains("..")
+              && INCLUDE_THIRD_PARTY_FILE_PATTERN.matcher(entryPath).matches()) {
+            result.addThirdPartyFile(new JarIndex.Entry(currentEntry.getName(), entryPath));
+          }
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,147 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A local database of license information and license texts, which allows to create the CFF file
+ * and the third party folder without accessing the network. The database is stored as JSON file.
+ */
+public class LicenseDatabase {
+
+  private static final int VERSION = 1;
+
+  private final Map<String, RemoteLicenseInformation> licenses = new TreeMap<>();
+  private final Map<String, String> licenseTexts = new TreeMap<>();
+
+  /**
+   * Get the license information for an artifact.
+   *
+   * @param artifactId The ID of the artifact.
+   * @return The license information, which might mark that no license information exists, or
+   *         null if the artifact is unknown.
+   */
+  public RemoteLicenseInformation getLicense(String artifactId) {
+    return licenses.get(artifactId);
+  }
+
+  public void putLicense(String artifactId, RemoteLicenseInformation license) {
+    licenses.put(artifactId, license);
+  }
+
+  public Map<String, RemoteLicenseInformation> getLicenses() {
+    return Collections.unmodifiableMap(licenses);
+  }
+
+  /**
+   * Get a license text that has been downloaded before.
+   *
+   * @param url The URL of the license text.
+   * @return The license text or null if the URL is unknown.
+   */
+  public String getLicenseText(String url) {
+    return licenseTexts.get(url);
+  }
+
+  public void putLicenseText(String url, String text) {
+    licenseTexts.put(url, text);
+  }
+
+  public Map<String, String> getLicenseTexts() {
+    return Collections.unmodifiableMap(licenseTexts);
+  }
+
+  /**
+   * Read a database from a JSON file.
+   *
+   * @param file The file to read.
+   * @return The database.
+   * @throws IOException If the file can not be read or has an invalid format.
+   */
+  public static LicenseDatabase read(File file) throws IOException {
+    LicenseDatabase result = new LicenseDatabase();
+    try {
+      JSONObject root =
+          new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+      int version = root.getInt("version");
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of license database "
+            + file.getPath() + ", expected version " + VERSION);
+      }
+      JSONObject licenses = root.getJSONObject("licenses");
+      for (String artifactId : licenses.keySet()) {
+        JSONObject entry = licenses.getJSONObject(artifactId);
+        RemoteLicenseInformation license = RemoteLicenseInformation.notFound();
+        if (entry.has("license")) {
+          license.setSpdx(entry.getString("license"));
+          List<String> authors = new ArrayList<>();
+          JSONArray authorsArray = entry.optJSONArray("authors");
+          if (authorsArray != null) {
+            for (int i = 0; i < authorsArray.length(); i++) {
+              authors.add(authorsArray.getString(i));
+            }
+          }
+          license.setAuthors(authors);
+          license.setScore(entry.optLong("score"));
+        }
+        result.licenses.put(artifactId, license);
+      }
+      JSONObject texts = root.getJSONObject("licenseTexts");
+      for (String url : texts.keySet()) {
+        result.licenseTexts.put(url, texts.getString(url));
+      }
+    } catch (JSONException ex) {
+      throw new IOException("Invalid license database " + file.getPath(), ex);
+    }
+    return result;
+  }
+
+  /**
+   * Write the database to a JSON file. The entries are sorted, so the same content always results
+   * in the same file.
+   *
+   * @param file The file to write.
+   * @throws IOException If the file can not be written.
+   */
+  public void write(File file) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n  \"version\": ").append(VERSION).append(",\n  \"licenses\": {");
+    boolean first = true;
+    for (Map.Entry<String, RemoteLicenseInformation> e : licenses.entrySet()) {
+      JSONObject entry = new JSONObject();
+      RemoteLicenseInformation license = e.getValue();
+      if (license.isFound()) {
+        entry.put("license", license.getSpdx());
+        entry.put("authors", new JSONArray(license.getAuthors()));
+        entry.put("score", license.getScore());
+      }
+      sb.append(first ? "\n    " : ",\n    ").append(JSONObject.quote(e.getKey())).append(": ")
+          .append(entry.toString());
+      first = false;
+    }
+    sb.append("\n  },\n  \"licenseTexts\": {");
+    first = true;
+    for (Map.Entry<String, String> e : licenseTexts.entrySet()) {
+      sb.append(first ? "\n    " : ",\n    ").append(JSONObject.quote(e.getKey())).append(": ")
+          .append(JSONObject.quote(e.getValue()));
+      first = false;
+    }
+    sb.append("\n  }\n}\n");
+
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Could not create folder " + parent.getPath());
+    }
+    Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
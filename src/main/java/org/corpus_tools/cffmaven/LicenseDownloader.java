@@ -0,0 +1,105 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.maven.plugin.logging.Log;
+import org.ehcache.Cache;
+
+/**
+ * Downloads license texts in parallel. Each URL is only downloaded once and successful downloads
+ * are stored in a persistent cache.
+ */
+public class LicenseDownloader {
+
+  /**
+   * Maximum number of downloads the HTTP client of the downloader should execute at the same time.
+   */
+  static final int MAX_PARALLEL_DOWNLOADS = 8;
+
+  private final OkHttpClient http;
+  private final Cache<String, String> cache;
+
+  /**
+   * Create a new downloader.
+   *
+   * @param http The HTTP client, whose dispatcher limits the number of parallel downloads.
+   * @param cache The cache for downloaded license texts.
+   */
+  public LicenseDownloader(OkHttpClient http, Cache<String, String> cache) {
+    this.http = http;
+    this.cache = cache;
+  }
+
+  /**
+   * Download the license texts from all given URLs in parallel and wait until all downloads are
+   * finished. Progress and errors are reported to the log in the order of the URLs.
+   *
+   * @param urls The URLs to download, which may contain duplicates.
+   * @param log The log to report to.
+   * @return The license text for each URL, or an empty value if the download failed.
+   */
+  public Map<String, Optional<String>> download(Collection<String> urls, Log log) {
+    Map<String, CompletableFuture<Optional<String>>> downloads = new LinkedHashMap<>();
+    for (String url : new LinkedHashSet<>(urls)) {
+      String cached = cache.get(url);
+      if (cached == null) {
+        log.info("Downloading license from URL " + url);
+        downloads.put(url, fetch(url));
+      } else {
+        downloads.put(url, CompletableFuture.completedFuture(Optional.of(cached)));
+      }
+    }
+
+    Map<String, Optional<String>> result = new LinkedHashMap<>();
+    for (Map.Entry<String, CompletableFuture<Optional<String>>> d : downloads.entrySet()) {
+      try {
+        Optional<String> text = d.getValue().join();
+        if (text.isPresent()) {
+          cache.put(d.getKey(), text.get());
+        }
+        result.put(d.getKey(), text);
+      } catch (CompletionException ex) {
+        log.error("License download for URL " + d.getKey() + " failed.", ex.getCause());
+        result.put(d.getKey(), Optional.empty());
+      }
+    }
+    return result;
+  }
+
+  private CompletableFuture<Optional<String>> fetch(String url) {
+    CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+    http.newCall(new Request.Builder().url(url).build()).enqueue(new Callback() {
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        try (ResponseBody body = response.body()) {
+          if (response.code() == 200 && body != null) {
+            result.complete(Optional.of(body.string()));
+          } else {
+            result.complete(Optional.empty());
+          }
+        } catch (IOException | RuntimeException ex) {
+          result.completeExceptionally(ex);
+        }
+      }
+
+      @Override
+      public void onFailure(Call call, IOException ex) {
+        result.completeExceptionally(ex);
+      }
+    });
+    return result;
+  }
+}
@@ -0,0 +1,144 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Provides SPDX license texts without accessing the network. The texts are taken from an optional
+ * ZIP archive, like a release of the SPDX "license-list-data" repository, or from the texts of the
+ * SPDX license list bundled with this plugin.
+ *
+ * <p>
+ * The bundled texts are stored in the same format as a release of the license list data. Because a
+ * ZIP file can only be read randomly from a file, the bundled archive is copied to a temporary file
+ * the first time a license text is needed that is not in the configured archive.
+ * </p>
+ */
+public class LicenseTextStore implements Closeable {
+
+  private static final String BUNDLED_ARCHIVE = "spdx/license-list-data.zip";
+  private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9.+-]+");
+
+  private static File bundledArchiveFile;
+
+  private final ZipFile archive;
+  private final Map<String, ZipEntry> archiveIndex;
+  private ZipFile bundledArchive;
+  private Map<String, ZipEntry> bundledIndex;
+
+  /**
+   * Create a store that only uses the bundled license texts.
+   */
+  public LicenseTextStore() {
+    this.archive = null;
+    this.archiveIndex = Collections.emptyMap();
+  }
+
+  /**
+   * Create a store that uses the license texts from the given archive before the bundled ones.
+   * Each "[id].txt" file in the archive is used as license text for the SPDX identifier "id". If
+   * there are several files for the same identifier, the one in a "text" folder is used.
+   *
+   * @param archive The ZIP archive with the license texts.
+   * @throws IOException If the archive can not be opened.
+   */
+  public LicenseTextStore(File archive) throws IOException {
+    this.archive = new ZipFile(archive);
+    this.archiveIndex = createIndex(this.archive);
+  }
+
+  /**
+   * Only the central directory is read, the entries are read when needed.
+   */
+  private static Map<String, ZipEntry> createIndex(ZipFile archive) {
+    Map<String, ZipEntry> index = new HashMap<>();
+    Enumeration<? extends ZipEntry> entries = archive.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      String name = entry.getName();
+      if (!entry.isDirectory() && name.endsWith(".txt")) {
+        String folder = name.substring(0, name.lastIndexOf('/') + 1);
+        String id = name.substring(folder.length(), name.length() - ".txt".length());
+        if (folder.endsWith("text/") || !index.containsKey(id)) {
+          index.put(id, entry);
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Get the license text for an SPDX identifier.
+   *
+   * @param spdxId The SPDX identifier of the license.
+   * @return The license text or an empty value if it is not available.
+   * @throws IOException If reading the license text failed.
+   */
+  public synchronized Optional<byte[]> get(String spdxId) throws IOException {
+    if (!VALID_ID.matcher(spdxId).matches()) {
+      return Optional.empty();
+    }
+    ZipEntry entry = archiveIndex.get(spdxId);
+    if (entry != null) {
+      return Optional.of(read(archive, entry));
+    }
+    if (bundledArchive == null) {
+      bundledArchive = new ZipFile(getBundledArchiveFile());
+      bundledIndex = createIndex(bundledArchive);
+    }
+    entry = bundledIndex.get(spdxId);
+    if (entry != null) {
+      return Optional.of(read(bundledArchive, entry));
+    }
+    return Optional.empty();
+  }
+
+  private static byte[] read(ZipFile archive, ZipEntry entry) throws IOException {
+    try (InputStream in = archive.getInputStream(entry)) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static synchronized File getBundledArchiveFile() throws IOException {
+    if (bundledArchiveFile == null || !bundledArchiveFile.isFile()) {
+      Path file = Files.createTempFile("cff-maven-plugin-spdx-", ".zip");
+      file.toFile().deleteOnExit();
+      try (InputStream in = LicenseTextStore.class.getResourceAsStream(BUNDLED_ARCHIVE)) {
+        if (in == null) {
+          throw new FileNotFoundException("Bundled resource " + BUNDLED_ARCHIVE + " is missing");
+        }
+        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      bundledArchiveFile = file.toFile();
+    }
+    return bundledArchiveFile;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      if (archive != null) {
+        archive.close();
+      }
+    } finally {
+      if (bundledArchive != null) {
+        bundledArchive.close();
+        bundledArchive = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.maven.plugin.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Collects the time spent in the different phases of a plugin execution, the time needed for each
+ * artifact and counters like the number of HTTP calls or cache hits. All methods are thread-safe.
+ */
+public class Metrics {
+
+  /**
+   * Upper bounds in milliseconds of the histogram buckets. The last bucket has no upper bound.
+   */
+  private static final long[] BUCKET_LIMITS = {1, 10, 100, 1000, 10000};
+  private static final String[] BUCKET_NAMES = {"<1ms", "<10ms", "<100ms", "<1s", "<10s", ">=10s"};
+
+  private final Map<String, Phase> phases = new ConcurrentSkipListMap<>();
+  private final Map<String, AtomicLong> counters = new ConcurrentSkipListMap<>();
+  private final Map<String, AtomicLong> artifacts = new ConcurrentHashMap<>();
+
+  /**
+   * Measures the time until it is closed and adds it to a phase.
+   */
+  public class Timer implements AutoCloseable {
+    private final String phase;
+    private final long start = System.nanoTime();
+
+    private Timer(String phase) {
+      this.phase = phase;
+    }
+
+    public long elapsedNanos() {
+      return System.nanoTime() - start;
+    }
+
+    @Override
+    public void close() {
+      record(phase, elapsedNanos());
+    }
+  }
+
+  private static class Phase {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_NAMES.length);
+  }
+
+  /**
+   * Start measuring the time of a phase.
+   *
+   * @param phase The name of the phase.
+   * @return A timer that adds the elapsed time to the phase when it is closed.
+   */
+  public Timer start(String phase) {
+    return new Timer(phase);
+  }
+
+  /**
+   * Add the duration of one execution of a phase.
+   *
+   * @param phase The name of the phase.
+   * @param nanos The duration in nanoseconds.
+   */
+  public void record(String phase, long nanos) {
+    Phase p = phases.computeIfAbsent(phase, k -> new Phase());
+    p.count.incrementAndGet();
+    p.totalNanos.addAndGet(nanos);
+    p.maxNanos.accumulateAndGet(nanos, Math::max);
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < BUCKET_LIMITS.length && millis >= BUCKET_LIMITS[bucket]) {
+      bucket++;
+    }
+    p.histogram.incrementAndGet(bucket);
+  }
+
+  /**
+   * Add the time needed to create the reference of an artifact.
+   *
+   * @param artifactId The ID of the artifact.
+   * @param nanos The duration in nanoseconds.
+   */
+  public void recordArtifact(String artifactId, long nanos) {
+    artifacts.computeIfAbsent(artifactId, k -> new AtomicLong()).addAndGet(nanos);
+  }
+
+  public void increment(String counter) {
+    add(counter, 1);
+  }
+
+  public void add(String counter, long value) {
+    counters.computeIfAbsent(counter, k -> new AtomicLong()).addAndGet(value);
+  }
+
+  public long getCounter(String counter) {
+    AtomicLong value = counters.get(counter);
+    return value == null ? 0 : value.get();
+  }
+
+  /**
+   * Get the peak heap usage of the JVM since it has been started. The peak usage is never reset,
+   * because it is shared by all goals and modules running in the same JVM. This is the sum of the
+   * peak usages of all heap memory pools, which can be a bit larger than the actual peak.
+   *
+   * @return The peak heap usage in bytes.
+   */
+  public long getPeakHeapBytes() {
+    long result = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        result += pool.getPeakUsage().getUsed();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get the artifacts that needed the most time.
+   *
+   * @param limit The maximum number of artifacts.
+   * @return The artifact IDs and their duration in nanoseconds, the slowest first.
+   */
+  public List<Map.Entry<String, Long>> getSlowestArtifacts(int limit) {
+    List<Map.Entry<String, Long>> result = new ArrayList<>();
+    for (Map.Entry<String, AtomicLong> e : artifacts.entrySet()) {
+      result.add(Map.entry(e.getKey(), e.getValue().get()));
+    }
+    result.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+        .thenComparing(Map.Entry.comparingByKey()));
+    return result.subList(0, Math.min(limit, result.size()));
+  }
+
+  /**
+   * Write a summary of all phases, counters and the slowest artifacts to the log.
+   *
+   * @param log The log to write to.
+   * @param slowestArtifacts The number of slowest artifacts to list.
+   */
+  public void log(Log log, int slowestArtifacts) {
+    if (!phases.isEmpty()) {
+      log.info("Time per phase:");
+      for (Map.Entry<String, Phase> e : phases.entrySet()) {
+        Phase p = e.getValue();
+        log.info("  " + e.getKey() + ": " + p.count.get() + " times, total "
+            + toMillis(p.totalNanos.get()) + " ms, max " + toMillis(p.maxNanos.get()) + " ms");
+      }
+    }
+    if (!counters.isEmpty()) {
+      log.info("Counters:");
+      for (Map.Entry<String, AtomicLong> e : counters.entrySet()) {
+        log.info("  " + e.getKey() + ": " + e.getValue().get());
+      }
+    }
+    log.info("Peak heap usage: " + getPeakHeapBytes() / (1024 * 1024) + " MB");
+    List<Map.Entry<String, Long>> slowest = getSlowestArtifacts(slowestArtifacts);
+    if (!slowest.isEmpty()) {
+      log.info("Slowest artifacts:");
+      for (Map.Entry<String, Long> e : slowest) {
+        log.info("  " + e.getKey() + ": " + toMillis(e.getValue()) + " ms");
+      }
+    }
+  }
+
+  /**
+   * Write all phases with their histograms, the counters and the slowest artifacts as JSON file.
+   *
+   * @param file The file to write.
+   * @param goal The name of the executed goal.
+   * @param slowestArtifacts The number of slowest artifacts to include.
+   * @throws IOException If the file can not be written.
+   */
+  public void writeJson(File file, String goal, int slowestArtifacts) throws IOException {
+    JSONObject root = new JSONObject();
+    root.put("goal", goal);
+    root.put("peakHeapBytes", getPeakHeapBytes());
+    JSONObject phasesJson = new JSONObject();
+    for (Map.Entry<String, Phase> e : phases.entrySet()) {
+      Phase p = e.getValue();
+      JSONObject phase = new JSONObject();
+      phase.put("count", p.count.get());
+      phase.put("totalMillis", toMillis(p.totalNanos.get()));
+      phase.put("maxMillis", toMillis(p.maxNanos.get()));
+      JSONObject histogram = new JSONObject();
+      for (int i = 0; i < BUCKET_NAMES.length; i++) {
+        histogram.put(BUCKET_NAMES[i], p.histogram.get(i));
+      }
+      phase.put("histogram", histogram);
+      phasesJson.put(e.getKey(), phase);
+    }
+    root.put("phases", phasesJson);
+    JSONObject countersJson = new JSONObject();
+    for (Map.Entry<String, AtomicLong> e : counters.entrySet()) {
+      countersJson.put(e.getKey(), e.getValue().get());
+    }
+    root.put("counters", countersJson);
+    JSONArray slowest = new JSONArray();
+    for (Map.Entry<String, Long> e : getSlowestArtifacts(slowestArtifacts)) {
+      JSONObject artifact = new JSONObject();
+      artifact.put("artifact", e.getKey());
+      artifact.put("millis", toMillis(e.getValue()));
+      slowest.put(artifact);
+    }
+    root.put("slowestArtifacts", slowest);
+
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Could not create folder " + parent.getPath());
+    }
+    Files.write(file.toPath(), root.toString(2).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
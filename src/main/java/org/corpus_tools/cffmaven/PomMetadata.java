@@ -0,0 +1,141 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The information of an effective POM that is needed to create a reference: the name, the
+ * coordinates, licenses, developers and the SCM URL. In contrast to the complete Maven project, it
+ * is small and can be stored in a persistent cache.
+ */
+public class PomMetadata implements Serializable {
+
+  private static final long serialVersionUID = -3405911923786340129L;
+
+  /**
+   * A license of the project.
+   */
+  public static class License implements Serializable {
+    private static final long serialVersionUID = 6069390845447932131L;
+
+    private final String name;
+    private final String url;
+
+    public License(String name, String url) {
+      this.name = name;
+      this.url = url;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getUrl() {
+      return url;
+    }
+  }
+
+  /**
+   * A developer of the project.
+   */
+  public static class Developer implements Serializable {
+    private static final long serialVersionUID = -1749284413826043514L;
+
+    private final String name;
+    private final String email;
+
+    public Developer(String name, String email) {
+      this.name = name;
+      this.email = email;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+  }
+
+  private final String name;
+  private final String groupId;
+  private final String artifactId;
+  private final String version;
+  private final ArrayList<License> licenses = new ArrayList<>();
+  private final ArrayList<Developer> developers = new ArrayList<>();
+  private final String scmUrl;
+
+  /**
+   * Create new metadata.
+   *
+   * @param name The name of the project.
+   * @param groupId The group ID.
+   * @param artifactId The artifact ID.
+   * @param version The version.
+   * @param licenses The licenses, in the order of the POM.
+   * @param developers The developers, in the order of the POM.
+   * @param scmUrl The URL of the SCM or null.
+   */
+  public PomMetadata(String name, String groupId, String artifactId, String version,
+      List<License> licenses, List<Developer> developers, String scmUrl) {
+    this.name = name;
+    this.groupId = groupId;
+    this.artifactId = artifactId;
+    this.version = version;
+    this.licenses.addAll(licenses);
+    this.developers.addAll(developers);
+    this.scmUrl = scmUrl;
+  }
+
+  /**
+   * Get the metadata of a project built by Maven.
+   *
+   * @param project The project with the effective model.
+   * @return The metadata.
+   */
+  public static PomMetadata of(MavenProject project) {
+    List<License> licenses = new ArrayList<>();
+    for (org.apache.maven.model.License l : project.getLicenses()) {
+      licenses.add(new License(l.getName(), l.getUrl()));
+    }
+    List<Developer> developers = new ArrayList<>();
+    for (org.apache.maven.model.Developer d : project.getDevelopers()) {
+      developers.add(new Developer(d.getName(), d.getEmail()));
+    }
+    String scmUrl = project.getScm() == null ? null : project.getScm().getUrl();
+    return new PomMetadata(project.getName(), project.getGroupId(), project.getArtifactId(),
+        project.getVersion(), licenses, developers, scmUrl);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getGroupId() {
+    return groupId;
+  }
+
+  public String getArtifactId() {
+    return artifactId;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public List<License> getLicenses() {
+    return Collections.unmodifiableList(licenses);
+  }
+
+  public List<Developer> getDevelopers() {
+    return Collections.unmodifiableList(developers);
+  }
+
+  public String getScmUrl() {
+    return scmUrl;
+  }
+}
@@ -0,0 +1,90 @@
+package org.corpus_tools.cffmaven;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Results that are shared by all modules of a Maven build, so that dependencies used by several
+ * modules are only resolved once. All methods are thread-safe. References are copied when they are
+ * added and returned, so a module can not change the references of other modules.
+ */
+public class ReactorCache {
+
+  private final Map<String, PomMetadata> pomMetadata = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Object>> references = new ConcurrentHashMap<>();
+  private final Map<String, ClearlyDefinedClient> clearlyDefinedClients =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Get the metadata of the Maven project that has been built for an artifact.
+   *
+   * @param artifactId The ID of the artifact.
+   * @return The metadata or null.
+   */
+  public PomMetadata getPomMetadata(String artifactId) {
+    return pomMetadata.get(artifactId);
+  }
+
+  public void putPomMetadata(String artifactId, PomMetadata metadata) {
+    pomMetadata.putIfAbsent(artifactId, metadata);
+  }
+
+  /**
+   * Get the reference that has been created for an artifact with the same configuration.
+   *
+   * @param configuration A key for all parameters that influence the reference.
+   * @param artifactId The ID of the artifact.
+   * @return A copy of the reference or null.
+   */
+  public Map<String, Object> getReference(String configuration, String artifactId) {
+    Map<String, Object> reference = references.get(configuration + "|" + artifactId);
+    return reference == null ? null : copy(reference);
+  }
+
+  public void putReference(String configuration, String artifactId,
+      Map<String, Object> reference) {
+    references.putIfAbsent(configuration + "|" + artifactId, copy(reference));
+  }
+
+  private static Map<String, Object> copy(Map<String, Object> reference) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> e : reference.entrySet()) {
+      result.put(e.getKey(), copyValue(e.getValue()));
+    }
+    return result;
+  }
+
+  private static Object copyValue(Object value) {
+    if (value instanceof Map<?, ?>) {
+      Map<Object, Object> result = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+        result.put(e.getKey(), copyValue(e.getValue()));
+      }
+      return result;
+    } else if (value instanceof List<?>) {
+      List<Object> result = new ArrayList<>();
+      for (Object item : (List<?>) value) {
+        result.add(copyValue(item));
+      }
+      return result;
+    }
+    // Strings, numbers and booleans are immutable
+    return value;
+  }
+
+  /**
+   * Get the ClearlyDefined client for an URL, so that requests are shared by all modules.
+   *
+   * @param url The base URL of the API.
+   * @param factory Creates a new client for the URL.
+   * @return The shared client.
+   */
+  public ClearlyDefinedClient getClearlyDefinedClient(String url,
+      Function<String, ClearlyDefinedClient> factory) {
+    return clearlyDefinedClients.computeIfAbsent(url, factory);
+  }
+}
@@ -0,0 +1,47 @@
+package org.corpus_tools.cffmaven;
+
+import java.util.concurrent.TimeUnit;
+import org.ehcache.ValueSupplier;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expiry;
+
+/**
+ * Expiry policy for the remote license cache, which keeps entries for artifacts without any
+ * remote license information for a different time than the found license information.
+ */
+public class RemoteLicenseExpiry implements Expiry<String, RemoteLicenseInformation> {
+
+  private final Duration found;
+  private final Duration notFound;
+
+  /**
+   * Create a new expiry policy.
+   *
+   * @param foundHours Time to live in hours for found license information.
+   * @param notFoundHours Time to live in hours for the information that nothing was found.
+   */
+  public RemoteLicenseExpiry(long foundHours, long notFoundHours) {
+    this.found = Duration.of(foundHours, TimeUnit.HOURS);
+    this.notFound = Duration.of(notFoundHours, TimeUnit.HOURS);
+  }
+
+  @Override
+  public Duration getExpiryForCreation(String key, RemoteLicenseInformation value) {
+    return value.isFound() ? found : notFound;
+  }
+
+  @Override
+  public Duration getExpiryForAccess(String key,
+      ValueSupplier<? extends RemoteLicenseInformation> value) {
+    // keep the existing expiration time
+    return null;
+  }
+
+  @Override
+  public Duration getExpiryForUpdate(String key,
+      ValueSupplier<? extends RemoteLicenseInformation> oldValue,
+      RemoteLicenseInformation newValue) {
+    return getExpiryForCreation(key, newValue);
+  }
+
+}
@@ -1,16 +1,34 @@
 package org.corpus_tools.cffmaven;
 
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class RemoteLicenseInformation implements Serializable {
   private static final long serialVersionUID = -9210187411126111132L;
 
   private String spdx;
-  private List<String> authors = new LinkedList<>();
+  private List<String> authors = new ArrayList<>();
   private long score = 0;
 
+  /**
+   * Create an entry that marks that no license information was found for an artifact.
+   * 
+   * @return An entry without an SPDX identifier.
+   */
+  public static RemoteLicenseInformation notFound() {
+    return new RemoteLicenseInformation();
+  }
+
+  /**
+   * Whether license information was found or this entry marks that nothing was found.
+   * 
+   * @return True if an SPDX identifier is set.
+   */
+  public boolean isFound() {
+    return spdx != null;
+  }
+
   public String getSpdx() {
     return spdx;
   }
@@ -0,0 +1,175 @@
+package org.corpus_tools.cffmaven;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.ehcache.spi.persistence.StateRepository;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+/**
+ * Stores {@link RemoteLicenseInformation} in a compact binary format instead of using Java
+ * serialization. The layout is:
+ * <ul>
+ * <li>one byte with the format version</li>
+ * <li>one byte for the SPDX identifier: 0 if no license was found, the position in the list of
+ * common identifiers or 255 if the identifier follows as string</li>
+ * <li>the score as 8 byte number</li>
+ * <li>a table of the distinct author names, followed by the index of each author in this
+ * table</li>
+ * </ul>
+ * Numbers of entries are stored as unsigned 2 byte numbers, strings as 4 byte length followed by
+ * the UTF-8 encoded characters.
+ */
+public class RemoteLicenseInformationSerializer implements Serializer<RemoteLicenseInformation> {
+
+  private static final byte VERSION = 1;
+
+  private static final int NOT_FOUND = 0;
+  private static final int LITERAL = 255;
+
+  /**
+   * Common SPDX identifiers that are stored as a single byte. New identifiers must only be added
+   * at the end, because the position is stored.
+   */
+  private static final List<String> COMMON_IDS = Arrays.asList(KnownLicenses.SPDX_APACHE20,
+      KnownLicenses.SPDX_MIT, KnownLicenses.SPDX_EPL10, KnownLicenses.SPDX_GPL20CLASSPATHEX,
+      "EPL-2.0", "BSD-2-Clause", "BSD-3-Clause", "ISC", "CC0-1.0", "Unlicense", "MPL-1.1",
+      "MPL-2.0", "CDDL-1.0", "CDDL-1.1", "EDL-1.0", "Apache-1.1", "GPL-2.0-only",
+      "GPL-2.0-or-later", "GPL-3.0-only", "GPL-3.0-or-later", "LGPL-2.1-only",
+      "LGPL-2.1-or-later", "LGPL-3.0-only", "LGPL-3.0-or-later");
+
+  private static final Map<String, Integer> COMMON_ID_CODES = new HashMap<>();
+
+  static {
+    for (int i = 0; i < COMMON_IDS.size(); i++) {
+      COMMON_ID_CODES.put(COMMON_IDS.get(i), i + 1);
+    }
+  }
+
+  /**
+   * Constructor used by Ehcache for caches without persistence.
+   *
+   * @param classLoader Not used.
+   */
+  public RemoteLicenseInformationSerializer(ClassLoader classLoader) {
+    // The serializer has no state
+  }
+
+  /**
+   * Constructor used by Ehcache for persistent caches.
+   *
+   * @param classLoader Not used.
+   * @param stateRepository Not used.
+   */
+  public RemoteLicenseInformationSerializer(ClassLoader classLoader,
+      StateRepository stateRepository) {
+    // The serializer has no state
+  }
+
+  @Override
+  public ByteBuffer serialize(RemoteLicenseInformation object) throws SerializerException {
+    String spdx = object.getSpdx();
+    Integer code = spdx == null ? Integer.valueOf(NOT_FOUND) : COMMON_ID_CODES.get(spdx);
+
+    // Collect the distinct authors
+    Map<String, Integer> table = new LinkedHashMap<>();
+    int[] indexes = new int[object.getAuthors().size()];
+    int i = 0;
+    for (String author : object.getAuthors()) {
+      indexes[i++] = table.computeIfAbsent(author, a -> table.size());
+    }
+    if (table.size() > 0xFFFF || indexes.length > 0xFFFF) {
+      throw new SerializerException("Too many authors: " + indexes.length);
+    }
+    List<byte[]> encoded = new ArrayList<>(table.size());
+    int size = 1 + 1 + Long.BYTES + 2 + 2 + 2 * indexes.length;
+    if (code == null) {
+      encoded.add(spdx.getBytes(StandardCharsets.UTF_8));
+    }
+    for (String author : table.keySet()) {
+      encoded.add(author.getBytes(StandardCharsets.UTF_8));
+    }
+    for (byte[] e : encoded) {
+      size += Integer.BYTES + e.length;
+    }
+
+    ByteBuffer result = ByteBuffer.allocate(size);
+    result.put(VERSION);
+    int stringIndex = 0;
+    if (code == null) {
+      result.put((byte) LITERAL);
+      putString(result, encoded.get(stringIndex++));
+    } else {
+      result.put(code.byteValue());
+    }
+    result.putLong(object.getScore());
+    result.putShort((short) table.size());
+    while (stringIndex < encoded.size()) {
+      putString(result, encoded.get(stringIndex++));
+    }
+    result.putShort((short) indexes.length);
+    for (int index : indexes) {
+      result.putShort((short) index);
+    }
+    result.flip();
+    return result;
+  }
+
+  @Override
+  public RemoteLicenseInformation read(ByteBuffer binary) throws SerializerException {
+    try {
+      byte version = binary.get();
+      if (version != VERSION) {
+        throw new SerializerException("Unknown version " + version + " of license information");
+      }
+      RemoteLicenseInformation result = RemoteLicenseInformation.notFound();
+      int code = Byte.toUnsignedInt(binary.get());
+      if (code == LITERAL) {
+        result.setSpdx(getString(binary));
+      } else if (code != NOT_FOUND) {
+        result.setSpdx(COMMON_IDS.get(code - 1));
+      }
+      result.setScore(binary.getLong());
+      String[] table = new String[Short.toUnsignedInt(binary.getShort())];
+      for (int i = 0; i < table.length; i++) {
+        table[i] = getString(binary);
+      }
+      int numberOfAuthors = Short.toUnsignedInt(binary.getShort());
+      List<String> authors = new ArrayList<>(numberOfAuthors);
+      for (int i = 0; i < numberOfAuthors; i++) {
+        authors.add(table[Short.toUnsignedInt(binary.getShort())]);
+      }
+      result.setAuthors(authors);
+      return result;
+    } catch (RuntimeException ex) {
+      throw new SerializerException("Invalid license information", ex);
+    }
+  }
+
+  @Override
+  public boolean equals(RemoteLicenseInformation object, ByteBuffer binary)
+      throws SerializerException {
+    RemoteLicenseInformation other = read(binary);
+    return Objects.equals(object.getSpdx(), other.getSpdx())
+        && object.getScore() == other.getScore()
+        && Objects.equals(new ArrayList<>(object.getAuthors()), other.getAuthors());
+  }
+
+  private static void putString(ByteBuffer buffer, byte[] value) {
+    buffer.putInt(value.length);
+    buffer.put(value);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] value = new byte[buffer.getInt()];
+    buffer.get(value);
+    return new String(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,204 @@
+package org.corpus_tools.cffmaven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.apache.commons.io.FileUtils;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
+import org.ehcache.Cache;
+import org.ehcache.PersistentCacheManager;
+import org.ehcache.StateTransitionException;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+
+/**
+ * A persistent cache manager that is shared by all executions of the plugin. It is a singleton
+ * component of the plugin, because a persistent cache directory can only be opened once.
+ *
+ * <p>
+ * The cache manager is opened by the first execution that uses it and closed when no execution
+ * uses it anymore, so the cache directory is not locked after the build, even if Maven keeps the
+ * plugin loaded (e.g. the Maven daemon). If the plugin is loaded as build extension, the cache
+ * manager is kept open until the Maven session ends instead, so it is only opened once for all
+ * modules.
+ * </p>
+ */
+@Named
+@Singleton
+public class SharedCacheManager implements Disposable {
+
+  /**
+   * Number of seconds to wait if the cache directory is locked by another process.
+   */
+  private static final long LOCK_TIMEOUT_SECONDS = 5;
+
+  private final File directory;
+  private final boolean temporary;
+  private PersistentCacheManager cacheManager;
+  private int users;
+  private boolean keepOpen;
+
+  /**
+   * Create a shared cache manager for the default directory in the local Maven repository.
+   */
+  public SharedCacheManager() {
+    this(new File(System.getProperty("user.home"),
+        ".m2/repository/.cache/cff-maven-plugin/shared"));
+  }
+
+  /**
+   * Create a new shared cache manager.
+   *
+   * @param directory The directory of the persistent caches.
+   */
+  public SharedCacheManager(File directory) {
+    this(directory, false);
+  }
+
+  private SharedCacheManager(File directory, boolean temporary) {
+    this.directory = directory;
+    this.temporary = temporary;
+  }
+
+  /**
+   * Create a cache manager for a new temporary directory, which is deleted when the cache manager
+   * is closed.
+   *
+   * @return The cache manager.
+   * @throws IOException If the temporary directory can not be created.
+   */
+  public static SharedCacheManager createTemporary() throws IOException {
+    return new SharedCacheManager(Files.createTempDirectory("cff-maven-plugin-cache").toFile(),
+        true);
+  }
+
+  File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Get the cache manager, which is opened if necessary.
+   *
+   * @return The opened cache manager.
+   * @throws StateTransitionException If the cache directory can not be opened, e.g. because it
+   *         is locked by another process.
+   */
+  public synchronized PersistentCacheManager get() {
+    if (cacheManager == null) {
+      PersistentCacheManager created = CacheManagerBuilder.newCacheManagerBuilder()
+          .with(CacheManagerBuilder.persistence(directory.getPath())).build(false);
+      // Ehcache waits until another process releases the lock of the directory
+      CompletableFuture<Void> init = CompletableFuture.runAsync(created::init);
+      try {
+        init.get(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (TimeoutException ex) {
+        init.thenRun(created::close);
+        throw new StateTransitionException(new IOException(
+            "The cache directory " + directory.getPath() + " is locked by another process"));
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw new StateTransitionException(ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        init.thenRun(created::close);
+        throw new StateTransitionException(ex);
+      }
+      cacheManager = created;
+    }
+    return cacheManager;
+  }
+
+  /**
+   * Start using the cache manager in an execution, which opens it if necessary. Each call must be
+   * followed by a call to {@link #release()}.
+   *
+   * @throws StateTransitionException If the cache directory can not be opened, e.g. because it
+   *         is locked by another process.
+   */
+  public synchronized void acquire() {
+    get();
+    users++;
+  }
+
+  /**
+   * Stop using the cache manager in an execution. The cache manager is closed if no other
+   * execution uses it and it is not kept open until the end of the session.
+   */
+  public synchronized void release() {
+    if (users > 0) {
+      users--;
+    }
+    if (users == 0 && !keepOpen) {
+      close();
+    }
+  }
+
+  /**
+   * Keep the cache manager open when no execution uses it, until {@link #sessionEnded()} is
+   * called.
+   *
+   * @return False if the cache manager is already kept open.
+   */
+  public synchronized boolean keepOpenUntilSessionEnd() {
+    if (keepOpen) {
+      return false;
+    }
+    keepOpen = true;
+    return true;
+  }
+
+  /**
+   * Close the cache manager at the end of the Maven session.
+   */
+  public synchronized void sessionEnded() {
+    keepOpen = false;
+    if (users == 0) {
+      close();
+    }
+  }
+
+  /**
+   * Get an existing cache or create it with the given configuration.
+   *
+   * @param alias The name of the cache.
+   * @param keyType The type of the keys.
+   * @param valueType The type of the values.
+   * @param configuration Creates the configuration for a new cache.
+   * @return The cache.
+   */
+  public synchronized <K, V> Cache<K, V> getCache(String alias, Class<K> keyType,
+      Class<V> valueType, Supplier<CacheConfigurationBuilder<K, V>> configuration) {
+    Cache<K, V> result = get().getCache(alias, keyType, valueType);
+    if (result == null) {
+      result = get().createCache(alias, configuration.get());
+    }
+    return result;
+  }
+
+  /**
+   * Close the cache manager. It is opened again when it is used after closing.
+   */
+  public synchronized void close() {
+    if (cacheManager != null) {
+      cacheManager.close();
+      cacheManager = null;
+    }
+    if (temporary) {
+      FileUtils.deleteQuietly(directory);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    close();
+  }
+}
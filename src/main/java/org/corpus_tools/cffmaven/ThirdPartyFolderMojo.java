@@ -2,18 +2,20 @@ package org.corpus_tools.cffmaven;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.util.Enumeration;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import okhttp3.HttpUrl;
-import okhttp3.Request;
-import okhttp3.Response;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -23,11 +25,6 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.project.ProjectBuildingRequest;
-import org.ehcache.Cache;
-import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.ResourcePoolsBuilder;
-import org.ehcache.config.units.EntryUnit;
-import org.ehcache.config.units.MemoryUnit;
 
 /**
  * Extracts third-party license files like "LICENSE.txt", "NOTICE" or "about.html" into a folder.
@@ -40,32 +37,36 @@ import org.ehcache.config.units.MemoryUnit;
     requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME)
 public class ThirdPartyFolderMojo extends AbstractCffMojo {
 
-  private static final Pattern INCLUDE_THIRD_PARTY_FILE_PATTERN =
-      Pattern.compile("(meta-info/)?((notice|dependencies|about|license)"
-          + "(\\.md|\\.txt|\\.html|\\.rst)?)|(about_files/.+)", Pattern.CASE_INSENSITIVE);
-
   @Parameter(defaultValue = "true")
   private boolean deleteFolder;
 
-  private Cache<String, String> downloadedLicensesCache;
+  @Parameter(defaultValue = "false")
+  private boolean syncFolder;
 
-  /** Constructor. */
-  public ThirdPartyFolderMojo() {
-    super();
+  @Parameter
+  private File spdxLicenseArchive;
 
-    downloadedLicensesCache = getCacheManager().createCache("downloadedLicenses",
-        CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class,
-            ResourcePoolsBuilder.newResourcePoolsBuilder().heap(100, EntryUnit.ENTRIES).disk(100,
-                MemoryUnit.MB, true)));
-  }
+  @Parameter(
+      defaultValue = "https://raw.githubusercontent.com/spdx/license-list-data/master/text/")
+  private String spdxLicenseUrl;
 
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
+    Metrics.Timer total = getMetrics().start("total");
+    try {
+      createFolder();
+    } finally {
+      total.close();
+      reportMetrics("third-party-folder");
+      closeCache();
+    }
+  }
 
+  private void createFolder() throws MojoExecutionException {
     ProjectBuildingRequest projectBuildingRequest = createProjectBuildingRequest();
 
-    if (deleteFolder && thirdPartyFolder != null && !thirdPartyFolder.getPath().isEmpty()
-        && thirdPartyFolder.isDirectory()) {
+    if (!syncFolder && deleteFolder && thirdPartyFolder != null
+        && !thirdPartyFolder.getPath().isEmpty() && thirdPartyFolder.isDirectory()) {
       try {
         getLog().info("Deleting third party folder " + thirdPartyFolder.getPath());
         FileUtils.deleteDirectory(thirdPartyFolder);
@@ -74,28 +75,48 @@ public class ThirdPartyFolderMojo extends AbstractCffMojo {
       }
     }
 
+    FolderContent content = new FolderContent();
+    Map<File, PendingLicense> licenses = new LinkedHashMap<>();
+    List<Artifact> artifacts = new ArrayList<>();
     for (Artifact artifact : project.getArtifacts()) {
       if (!isIgnored(artifact)) {
+        artifacts.add(artifact);
+      }
+    }
+    // Creates the references in order, but fetches the ClearlyDefined definitions in batches
+    createReferences(artifacts, projectBuildingRequest, 1, (artifact, newRef) -> {
+      String newRefTitle = (String) newRef.getOrDefault(TITLE, "");
+      String titleForThirdParty = (String) newRefTitle;
+      // remove additional information like stuff in (...) at the end
+      titleForThirdParty = titleForThirdParty.replaceFirst("\\s*\\([^)]*\\)$", "");
+      createThirdPartyFolder(titleForThirdParty, artifact, projectBuildingRequest, content,
+          licenses);
+    });
+    try (Metrics.Timer timer = getMetrics().start("licenses")) {
+      addLicenses(licenses, content);
+    }
+
+    try (Metrics.Timer timer = getMetrics().start("write-output")) {
+      if (syncFolder && thirdPartyFolder != null && !thirdPartyFolder.getPath().isEmpty()) {
         try {
-          Map<String, Object> newRef = createReference(artifact, projectBuildingRequest);
-          String newRefTitle = (String) newRef.getOrDefault(TITLE, "");
-          String titleForThirdParty = (String) newRefTitle;
-          // remove additional information like stuff in (...) at the end
-          titleForThirdParty = titleForThirdParty.replaceFirst("\\s*\\([^)]*\\)$", "");
-          createThirdPartyFolder(titleForThirdParty, artifact, projectBuildingRequest);
-
-        } catch (ProjectBuildingException ex) {
-          getLog().error("Can not resolve dependency artifact " + artifact.toString(), ex);
+          content.sync(thirdPartyFolder, deleteFolder, getLog());
+        } catch (IOException e) {
+          getLog().error("Could not synchronize third party folder", e);
         }
+      } else {
+        content.write(getLog());
       }
     }
+  }
 
-    closeCache();
-    downloadedLicensesCache = null;
+  private static boolean isEmptyFolder(File folder) {
+    String[] children = folder.list();
+    return children == null || children.length == 0;
   }
 
   private void createThirdPartyFolder(String title, Artifact artifact,
-      ProjectBuildingRequest projectBuildingRequest) {
+      ProjectBuildingRequest projectBuildingRequest, FolderContent content,
+      Map<File, PendingLicense> licenses) {
     // Create a sub-directory for this artifact
     File artifactFolder = getArtifactFolder(title);
     if (artifactFolder != null) {
@@ -104,37 +125,23 @@ public class ThirdPartyFolderMojo extends AbstractCffMojo {
       if (file != null && file.isFile()
           && "jar".equals(com.google.common.io.Files.getFileExtension(file.getName()))) {
 
-        try (ZipFile artifactFile = new ZipFile(file)) {
-          Enumeration<? extends ZipEntry> entries = artifactFile.entries();
-          while (entries.hasMoreElements()) {
-            ZipEntry currentEntry = entries.nextElement();
-            String entryPath =
-                currentEntry.getName().replace('\\', '/').replaceFirst("^META-INF/", "");
-
-            if (!entryPath.contains("..")) {
-
-              getLog().debug("Checking zip file entry \"" + entryPath
-                  + "\" for inclusion in third party folder.");
-              if (INCLUDE_THIRD_PARTY_FILE_PATTERN.matcher(entryPath).matches()) {
+        try {
+          JarIndex index = inspectJar(file);
+          if (!index.getThirdPartyFiles().isEmpty()) {
+            try (ZipFile jar = new ZipFile(file)) {
+              for (JarIndex.Entry entry : index.getThirdPartyFiles()) {
                 // copy this file to the output folder
-                File outputFile = new File(artifactFolder, entryPath);
-                if (outputFile.exists()) {
+                File outputFile = new File(artifactFolder, entry.getPath());
+                if (content.contains(outputFile) || (!syncFolder && outputFile.exists())) {
                   getLog().warn("Not overwriting existing file " + outputFile.getPath());
                 } else {
-                  getLog().info("Copying " + entryPath + " from " + artifact.getGroupId() + ":"
-                      + artifact.getArtifactId() + " to " + outputFile.getPath());
-                  if (outputFile.getParentFile().isDirectory()
-                      || outputFile.getParentFile().mkdirs()) {
-                    try (InputStream is = artifactFile.getInputStream(currentEntry)) {
-                      Files.copy(is, outputFile.toPath());
-                    }
-                  }
+                  getLog().info("Copying " + entry.getPath() + " from " + artifact.getGroupId()
+                      + ":" + artifact.getArtifactId() + " to " + outputFile.getPath());
+                  content.add(outputFile, entry.read(jar));
                 }
               }
             }
           }
-
-
         } catch (ZipException ex) {
           getLog().warn("Could not open file for artifact " + artifact.getId() + ". Error message: "
               + ex.getMessage());
@@ -147,88 +154,153 @@ public class ThirdPartyFolderMojo extends AbstractCffMojo {
       }
 
       // check if any files have been added
-      String[] children = artifactFolder.list();
-      if (children == null || children.length == 0) {
-        // Folder is empty, attempt to download the license
+      if (!content.hasFilesIn(artifactFolder) && !licenses.containsKey(artifactFolder)
+          && (syncFolder || isEmptyFolder(artifactFolder))) {
+        // Folder is empty, remember to download the license
         try {
           Map<String, Object> reference = createReference(artifact, projectBuildingRequest);
           Object licenseUrl = reference.get("license-url");
           Object licenseId = reference.get("license");
 
-          String licenseFileName = "LICENSE.txt";
-          Optional<String> licenseText = Optional.empty();
-
+          String url = null;
           if (licenseUrl instanceof String) {
-            HttpUrl url = HttpUrl.parse((String) licenseUrl);
-
-            if (downloadedLicensesCache.containsKey(url.toString())) {
-              licenseText = Optional.ofNullable(downloadedLicensesCache.get(url.toString()));
+            HttpUrl parsed = HttpUrl.parse((String) licenseUrl);
+            if (parsed == null) {
+              getLog().warn("Invalid license URL " + licenseUrl + " for " + artifact.toString());
             } else {
-              Request downloadRequest = new Request.Builder().url(url).build();
-
-              getLog().info(
-                  "Downloading license for " + artifact.toString() + " from URL " + licenseUrl);
-              try (Response response = http.newCall(downloadRequest).execute()) {
-                if (response.code() == 200) {
-                  licenseText = Optional.ofNullable(response.body().string());
-                  if (licenseText.isPresent()) {
-                    downloadedLicensesCache.put(url.toString(), licenseText.get());
-                  }
-                }
-              } catch (IOException e) {
-                getLog().error("License download for URL " + licenseUrl + " failed.", e);
-              }
+              url = parsed.toString();
             }
-
-
           }
+          String spdxId = licenseId instanceof String ? (String) licenseId : null;
+          if (url != null || spdxId != null) {
+            licenses.put(artifactFolder, new PendingLicense(artifact, url, spdxId));
+          }
+        } catch (ProjectBuildingException e) {
+          getLog().error("Could not construct Maven project descriptor", e);
+        }
 
-          if (!licenseText.isPresent() && licenseId instanceof String) {
-            // try to use the SPDX identifier to download the license
-            licenseFileName = licenseId + ".txt";
+      }
+    }
+  }
 
-            HttpUrl url = HttpUrl
-                .parse("https://raw.githubusercontent.com/spdx/license-list-data/master/text/"
-                    + (String) licenseId + ".txt");
+  private LicenseTextStore openLicenseTextStore() {
+    if (spdxLicenseArchive != null) {
+      try {
+        return new LicenseTextStore(spdxLicenseArchive);
+      } catch (IOException ex) {
+        getLog().error("Could not open SPDX license archive " + spdxLicenseArchive.getPath()
+            + ", only the bundled license texts are used.", ex);
+      }
+    }
+    return new LicenseTextStore();
+  }
 
-            if (downloadedLicensesCache.containsKey(url.toString())) {
-              licenseText = Optional.ofNullable(downloadedLicensesCache.get(url.toString()));
-            } else {
-              Request downloadRequest = new Request.Builder().url(url).build();
+  private void addLicenses(Map<File, PendingLicense> licenses, FolderContent content) {
+    if (licenses.isEmpty()) {
+      return;
+    }
+    LicenseDownloader downloader = new LicenseDownloader(
+        getHttp(LicenseDownloader.MAX_PARALLEL_DOWNLOADS), getDownloadedLicensesCache());
+
+    // Download all distinct license URLs in parallel
+    List<String> urls = licenses.values().stream().map(l -> l.url).filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    Map<String, Optional<String>> downloaded = new HashMap<>(fetchLicenseTexts(downloader, urls));
+
+    // Fall back to the SPDX license text for all licenses without a downloaded text. The local
+    // license texts are used before the SPDX repository, but never instead of a license URL.
+    Map<String, Optional<byte[]>> localTexts = new HashMap<>();
+    try (LicenseTextStore store = openLicenseTextStore()) {
+      for (PendingLicense l : licenses.values()) {
+        if (l.spdxId != null && downloaded.getOrDefault(l.url, Optional.empty()).isEmpty()
+            && !localTexts.containsKey(l.spdxId)) {
+          localTexts.put(l.spdxId, getLocalLicenseText(store, l.spdxId));
+        }
+      }
+    } catch (IOException ex) {
+      getLog().warn("Could not close SPDX license archive", ex);
+    }
+    List<String> spdxUrls = localTexts.entrySet().stream().filter(e -> e.getValue().isEmpty())
+        .map(e -> getSpdxLicenseUrl(e.getKey())).collect(Collectors.toList());
+    downloaded.putAll(fetchLicenseTexts(downloader, spdxUrls));
+
+    for (Map.Entry<File, PendingLicense> e : licenses.entrySet()) {
+      File artifactFolder = e.getKey();
+      PendingLicense license = e.getValue();
+
+      String licenseFileName = "LICENSE.txt";
+      String source = "downloaded license";
+      Optional<byte[]> licenseText = downloaded.getOrDefault(license.url, Optional.empty())
+          .map(text -> text.getBytes(Charset.defaultCharset()));
+      if (licenseText.isEmpty() && license.spdxId != null) {
+        licenseFileName = license.spdxId + ".txt";
+        licenseText = localTexts.getOrDefault(license.spdxId, Optional.empty());
+        if (licenseText.isPresent()) {
+          source = "SPDX license text";
+        } else {
+          licenseText = downloaded.getOrDefault(getSpdxLicenseUrl(license.spdxId), Optional.empty())
+              .map(text -> text.getBytes(Charset.defaultCharset()));
+        }
+      }
 
-              getLog()
-                  .info("Downloading license for " + artifact.toString() + " from SPDX repository");
+      if (licenseText.isPresent() && (syncFolder || !artifactFolder.exists())) {
+        getLog().info("Adding " + source + " " + licenseFileName + " for "
+            + license.artifact.toString());
+        File outputFile = new File(artifactFolder, licenseFileName);
+        content.add(outputFile, licenseText.get());
+      }
+    }
+  }
 
-              try (Response response = http.newCall(downloadRequest).execute()) {
-                if (response.code() == 200) {
-                  licenseText = Optional.ofNullable(response.body().string());
-                  if (licenseText.isPresent()) {
-                    downloadedLicensesCache.put(url.toString(), licenseText.get());
-                  }
-                }
-              } catch (IOException e) {
-                getLog().error("License download for URL " + licenseUrl + " failed.", e);
-              }
-            }
-          }
+  private Optional<byte[]> getLocalLicenseText(LicenseTextStore store, String spdxId) {
+    try {
+      return store.get(spdxId);
+    } catch (IOException ex) {
+      getLog().warn("Could not read SPDX license text " + spdxId, ex);
+      return Optional.empty();
+    }
+  }
 
-          if (licenseText.isPresent()) {
-            if (artifactFolder.mkdirs()) {
-              // Write out as LICENSE.txt
-              File outputFile = new File(artifactFolder, licenseFileName);
-              try {
-                FileUtils.writeStringToFile(outputFile, licenseText.get());
-              } catch (IOException e) {
-                getLog().error("Writing license file to " + outputFile.getPath() + " failed.", e);
-              }
-            }
-          }
+  private Map<String, Optional<String>> fetchLicenseTexts(LicenseDownloader downloader,
+      List<String> urls) {
+    Map<String, Optional<String>> result = new HashMap<>();
+    Set<String> missing = new LinkedHashSet<>();
+    Optional<LicenseDatabase> database = getLicenseDatabase();
+    for (String url : urls) {
+      String text = database.isPresent() ? database.get().getLicenseText(url) : null;
+      if (text == null) {
+        missing.add(url);
+      } else {
+        result.put(url, Optional.of(text));
+      }
+    }
+    if (offline) {
+      for (String url : missing) {
+        getLog().warn("Not downloading license from URL " + url + " in offline mode");
+      }
+    } else {
+      result.putAll(downloader.download(missing, getLog()));
+    }
+    return result;
+  }
 
-        } catch (ProjectBuildingException e) {
-          getLog().error("Could not construct Maven project descriptor", e);
-        }
+  private String getSpdxLicenseUrl(String licenseId) {
+    return HttpUrl.get(spdxLicenseUrl).newBuilder().addPathSegment(licenseId + ".txt").build()
+        .toString();
+  }
 
-      }
+  /**
+   * A license that needs to be added to an artifact folder.
+   */
+  private static class PendingLicense {
+    private final Artifact artifact;
+    private final String url;
+    private final String spdxId;
+
+    PendingLicense(Artifact artifact, String url, String spdxId) {
+      this.artifact = artifact;
+      this.url = url;
+      this.spdxId = spdxId;
     }
   }
 
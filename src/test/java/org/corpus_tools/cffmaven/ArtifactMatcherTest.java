@@ -0,0 +1,89 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class ArtifactMatcherTest {
+
+  @Test
+  void literalPatternsAreRecognized() {
+    assertTrue(ArtifactMatcher.LiteralPattern.parse("com\\.acme:.*").isPresent());
+    assertTrue(ArtifactMatcher.LiteralPattern.parse("org\\.example:example:jar:1\\.0:compile")
+        .isPresent());
+    assertTrue(ArtifactMatcher.LiteralPattern.parse(".*").isPresent());
+    assertFalse(ArtifactMatcher.LiteralPattern.parse("com.acme:.*").isPresent());
+    assertFalse(ArtifactMatcher.LiteralPattern.parse("com\\.acme\\.*").isPresent());
+    assertFalse(ArtifactMatcher.LiteralPattern.parse("\\d+:.*").isPresent());
+    assertFalse(ArtifactMatcher.LiteralPattern.parse("(commons-.*|org\\.json):.*").isPresent());
+  }
+
+  @Test
+  void literalPrefixes() {
+    assertEquals("org.other:", ArtifactMatcher.LiteralPattern.prefixOf("org\\.other:.*:test"));
+    assertEquals("com.acme:spec",
+        ArtifactMatcher.LiteralPattern.prefixOf("com\\.acme:spec[a-z]+:.*"));
+    assertEquals("org.examp", ArtifactMatcher.LiteralPattern.prefixOf("org\\.exampl?e:.*"));
+    assertEquals("org.exampl", ArtifactMatcher.LiteralPattern.prefixOf("org\\.exampl\\.?:.*"));
+    assertEquals("org:", ArtifactMatcher.LiteralPattern.prefixOf("org:(a|b):.*"));
+    assertEquals("", ArtifactMatcher.LiteralPattern.prefixOf("org:a:.*|com:b:.*"));
+    assertEquals("", ArtifactMatcher.LiteralPattern.prefixOf("(commons-.*|org\\.json):.*"));
+    assertEquals("", ArtifactMatcher.LiteralPattern.prefixOf("\\d+:.*"));
+    assertEquals("a", ArtifactMatcher.LiteralPattern.prefixOf("a[|]b"));
+  }
+
+  @Test
+  void sameResultAsRegularExpressions() {
+    List<String> ignored = Arrays.asList("org\\.example:ignored:.*", "org\\.other:.*:test",
+        "org\\.exact:exact:jar:1\\.0:compile", "org\\.json:.*|commons-io:.*");
+    List<String> templates = Arrays.asList("org\\.example:second:.*", "com\\.acme:spe[a-z]+:.*",
+        "org\\.exampl?e:.*", "org\\.example:.*", ".*:second:.*", "com\\.acme:.*",
+        "com\\.acme:special:.*", "(commons-.*|org\\.json):.*");
+    List<String> artifacts = Arrays.asList("org.example:ignored:jar:1.0:compile",
+        "org.example:second:jar:1.0:compile", "org.example:first:jar:1.0:compile",
+        "org.exampe:first:jar:1.0:compile", "org.other:second:jar:1.0:test",
+        "org.exact:exact:jar:1.0:compile", "org.exact:exact:jar:1.0:compile-not",
+        "com.acme:special:jar:1.0:compile", "com.acme:spe:jar:1.0:compile", "com.acme",
+        "comXacme:special:jar:1.0:compile", "com.acme:line\nbreak",
+        "org.json:json:jar:1.0:compile", "commons-io:commons-io:jar:2.0:compile", "");
+
+    ArtifactMatcher matcher = new ArtifactMatcher();
+    ignored.forEach(matcher::addIgnored);
+    for (int i = 0; i < templates.size(); i++) {
+      matcher.addTemplate(templates.get(i), new File("template" + i + ".yml"));
+    }
+
+    for (String artifact : artifacts) {
+      boolean expectedIgnored =
+          ignored.stream().anyMatch(p -> Pattern.compile(p).matcher(artifact).matches());
+      Optional<String> expectedTemplate = templates.stream()
+          .filter(p -> Pattern.compile(p).matcher(artifact).matches()).findFirst();
+
+      ArtifactMatcher.Match match = matcher.match(artifact);
+      assertEquals(expectedIgnored, match.isIgnored(), artifact);
+      assertEquals(expectedTemplate, match.getTemplate().map(t -> t.getPattern().pattern()),
+          artifact);
+    }
+  }
+
+  @Test
+  void findNextTemplate() {
+    ArtifactMatcher matcher = new ArtifactMatcher();
+    matcher.addTemplate("org\\.example:.*", new File("first.yml"));
+    matcher.addTemplate("com\\.acme:.*", new File("other.yml"));
+    matcher.addTemplate(".*", new File("fallback.yml"));
+
+    ArtifactMatcher.Template first =
+        matcher.match("org.example:a:jar:1.0:compile").getTemplate().get();
+    assertEquals(new File("first.yml"), first.getFile());
+    assertEquals(new File("fallback.yml"), matcher
+        .findTemplate("org.example:a:jar:1.0:compile", first.getIndex() + 1).get().getFile());
+  }
+}
@@ -0,0 +1,109 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+class CffInputReaderTest {
+
+  private static final String INPUT = String.join("\n", "cff-version: 1.2.0",
+      "title: \"Example\"", "authors: &team", "  - name: The Team", "references:",
+      "  - type: software", "    title: 'First'", "    authors: *team", "  - just a string",
+      "  - {title: 2, 3: ignored key, version: \"1.0\"}", "  - type: book",
+      "    notes: |", "      Multiple", "      lines", "version: 1.0.0", "");
+
+  @TempDir
+  Path tempDir;
+
+  private File write(String content) throws Exception {
+    File file = tempDir.resolve("input.cff").toFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private String copy(CffInputReader reader) throws Exception {
+    File output = tempDir.resolve("output.cff").toFile();
+    try (CffWriter writer = new CffWriter(output, reader.getHeader(), CreateMojo.REFERENCES)) {
+      reader.copyReferences(writer);
+      writer.commit();
+    }
+    return new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void sameContentAsLoadedFile() throws Exception {
+    CffInputReader reader = new CffInputReader(write(INPUT), CreateMojo.REFERENCES, "title");
+
+    Map<?, ?> loaded =
+        (Map<?, ?>) new Load(LoadSettings.builder().build()).loadFromString(INPUT);
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("cff-version", "1.2.0");
+    expected.put("title", "Example");
+    expected.put("authors", loaded.get("authors"));
+    expected.put("version", "1.0.0");
+    assertEquals(expected, reader.getHeader());
+    assertEquals(new HashSet<>(Arrays.asList("First", "2")), reader.getTitles());
+
+    List<?> references = (List<?>) loaded.get(CreateMojo.REFERENCES);
+    Map<String, Object> second = new LinkedHashMap<>();
+    second.put("title", 2);
+    second.put("version", "1.0");
+    expected.put(CreateMojo.REFERENCES,
+        Arrays.asList(references.get(0), second, references.get(3)));
+    // Aliases are resolved, so only the content is the same
+    assertEquals(expected, new Load(LoadSettings.builder().build()).loadFromString(copy(reader)));
+  }
+
+  @Test
+  void readSelectedReferences() throws Exception {
+    CffInputReader reader = new CffInputReader(write(INPUT), CreateMojo.REFERENCES, "title");
+    Map<String, Map<String, Object>> references =
+        reader.getReferences(new HashSet<>(Arrays.asList("2", "Unknown")));
+    assertEquals(1, references.size());
+    assertEquals("1.0", references.get("2").get("version"));
+  }
+
+  @Test
+  void loadFileWithAliasedReferences() throws Exception {
+    String input = String.join("\n", "cff-version: 1.2.0", "references:",
+        "  - &first", "    type: software", "    title: First", "  - *first",
+        "  - {title: Second}", "message: &message Please cite", "abstract: *message", "");
+    CffInputReader reader = new CffInputReader(write(input), CreateMojo.REFERENCES, "title");
+
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("cff-version", "1.2.0");
+    expected.put("message", "Please cite");
+    expected.put("abstract", "Please cite");
+    assertEquals(expected, reader.getHeader());
+    assertEquals(new HashSet<>(Arrays.asList("First", "Second")), reader.getTitles());
+
+    Map<?, ?> loaded = (Map<?, ?>) new Load(LoadSettings.builder().build()).loadFromString(input);
+    expected.put(CreateMojo.REFERENCES, loaded.get(CreateMojo.REFERENCES));
+    assertEquals(expected, new Load(LoadSettings.builder().build()).loadFromString(copy(reader)));
+  }
+
+  @Test
+  void ignoreOtherDocuments() throws Exception {
+    CffInputReader empty = new CffInputReader(write(""), CreateMojo.REFERENCES, "title");
+    assertTrue(empty.getHeader().isEmpty());
+    assertTrue(empty.getTitles().isEmpty());
+
+    CffInputReader list =
+        new CffInputReader(write("- a\n- b\n"), CreateMojo.REFERENCES, "title");
+    assertTrue(list.getHeader().isEmpty());
+    assertEquals("references: []\n", copy(list));
+  }
+}
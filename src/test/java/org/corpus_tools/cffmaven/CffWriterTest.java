@@ -0,0 +1,109 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CffWriterTest {
+
+  @TempDir
+  Path tempDir;
+
+  private static Map<String, Object> reference(int i) {
+    Map<String, Object> author = new LinkedHashMap<>();
+    author.put("name", "Author: \"" + i + "\"");
+    author.put("email", "author" + i + "@example.com");
+    Map<String, Object> reference = new LinkedHashMap<>();
+    reference.put("type", "software");
+    reference.put("title", "Reference " + i);
+    reference.put("version", i % 2 == 0 ? "1.0" : "true");
+    reference.put("license", "Apache-2.0");
+    reference.put("authors", new LinkedList<>(Arrays.asList(author)));
+    reference.put("notes", "More license information can be found in the\nTHIRD-PARTY folder.");
+    reference.put("empty", new ArrayList<>());
+    return reference;
+  }
+
+  private static Map<String, Object> header() {
+    Map<String, Object> cff = new LinkedHashMap<>();
+    cff.put("cff-version", "1.2.0");
+    cff.put("type", "software");
+    cff.put("message", "If you use this software, please cite it as below.");
+    cff.put("title", "Example #1: ümlauts");
+    cff.put("version", "0.9.0-SNAPSHOT");
+    cff.put("date-released", "2000-01-01");
+    Map<String, Object> author = new LinkedHashMap<>();
+    author.put("name", "The Example Team");
+    cff.put("authors", new LinkedList<>(Arrays.asList(author)));
+    cff.put("number", 42);
+    return cff;
+  }
+
+  private String write(File output, List<Map<String, Object>> references) throws Exception {
+    try (CffWriter writer = new CffWriter(output, header(), CreateMojo.REFERENCES)) {
+      for (Map<String, Object> ref : references) {
+        writer.writeReference(ref);
+      }
+      writer.commit();
+    }
+    return new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private static String dump(List<Map<String, Object>> references) {
+    Map<String, Object> cff = header();
+    cff.put(CreateMojo.REFERENCES, references);
+    return CreateMojo.toYaml(cff);
+  }
+
+  @Test
+  void sameOutputAsDump() throws Exception {
+    List<Map<String, Object>> references = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      references.add(reference(i));
+    }
+    File output = tempDir.resolve("CITATION.cff").toFile();
+    assertEquals(dump(references), write(output, references));
+    assertEquals(dump(new ArrayList<>()), write(output, new ArrayList<>()));
+  }
+
+  @Test
+  void keepPreviousFileIfNotCommitted() throws Exception {
+    File output = tempDir.resolve("CITATION.cff").toFile();
+    Files.write(output.toPath(), "previous".getBytes(StandardCharsets.UTF_8));
+
+    try (CffWriter writer = new CffWriter(output, header(), CreateMojo.REFERENCES)) {
+      writer.writeReference(reference(1));
+    }
+
+    assertEquals("previous",
+        new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+    assertArrayEquals(new String[] {"CITATION.cff"}, tempDir.toFile().list());
+  }
+
+  @Test
+  void writeSameFileConcurrently() throws Exception {
+    File output = tempDir.resolve("CITATION.cff").toFile();
+    try (CffWriter first = new CffWriter(output, header(), CreateMojo.REFERENCES);
+        CffWriter second = new CffWriter(output, header(), CreateMojo.REFERENCES)) {
+      first.writeReference(reference(1));
+      second.writeReference(reference(2));
+      first.commit();
+      second.commit();
+    }
+    assertEquals(dump(Arrays.asList(reference(2))),
+        new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8));
+    assertArrayEquals(new String[] {"CITATION.cff"}, tempDir.toFile().list());
+  }
+}
@@ -0,0 +1,162 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClearlyDefinedClientTest {
+
+  private static final String DEFINITION_A = "{\"licensed\":{\"declared\":\"MIT\","
+      + "\"facets\":{\"core\":{\"attribution\":{\"parties\":[\"Jane Doe\"]}}}},"
+      + "\"scores\":{\"effective\":87}}";
+  private static final String DEFINITION_B =
+      "{\"licensed\":{\"declared\":\"Apache-2.0\"},\"scores\":{\"effective\":50}}";
+
+  private MockWebServer server;
+  private ClearlyDefinedClient client;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = new MockWebServer();
+    server.start();
+    client = new ClearlyDefinedClient(new OkHttpClient(), server.url("/definitions"));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  void shareResultsWithOtherHttpClient() throws Exception {
+    server.enqueue(new MockResponse().setBody("[\"maven/mavencentral/org.example/a/1.0\"]"));
+
+    List<String> found = client.search("org.example/a/1.0").join();
+    ClearlyDefinedClient other = client.withHttp(new OkHttpClient());
+    assertEquals(found, other.search("org.example/a/1.0").join());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  @Test
+  void fetchDefinitionsInBatches() throws Exception {
+    // Answer the batch requests with the definitions for the requested coordinates
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        JSONArray coordinates = new JSONArray(request.getBody().readUtf8());
+        JSONObject result = new JSONObject();
+        for (Object c : coordinates) {
+          if ("maven/mavencentral/org.example/a/1.0".equals(c)) {
+            result.put((String) c, new JSONObject(DEFINITION_A));
+          } else if ("maven/mavencentral/org.example/b/1.0".equals(c)) {
+            result.put((String) c, new JSONObject(DEFINITION_B));
+          }
+        }
+        return new MockResponse().setBody(result.toString());
+      }
+    });
+
+    client.fetchDefinitions(Arrays.asList("maven/mavencentral/org.example/a/1.0",
+        "maven/mavencentral/org.example/b/1.0", "maven/mavencentral/org.example/c/1.0"), 2)
+        .join();
+
+    assertEquals(2, server.getRequestCount());
+    RecordedRequest first = server.takeRequest();
+    assertEquals("POST", first.getMethod());
+    assertEquals("-files", first.getRequestUrl().queryParameter("expand"));
+    assertEquals("POST", server.takeRequest().getMethod());
+
+    // All definitions are answered from the batch responses without further requests
+    Optional<RemoteLicenseInformation> a =
+        client.definition("maven/mavencentral/org.example/a/1.0").join();
+    assertTrue(a.isPresent());
+    assertEquals("MIT", a.get().getSpdx());
+    assertEquals(87, a.get().getScore());
+    assertEquals(Arrays.asList("Jane Doe"), a.get().getAuthors());
+
+    Optional<RemoteLicenseInformation> b =
+        client.definition("maven/mavencentral/org.example/b/1.0").join();
+    assertTrue(b.isPresent());
+    assertEquals("Apache-2.0", b.get().getSpdx());
+
+    assertFalse(client.definition("maven/mavencentral/org.example/c/1.0").join().isPresent());
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  void failedBatchFallsBackToSingleRequests() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(500));
+    server.enqueue(new MockResponse().setBody(DEFINITION_B));
+
+    client.fetchDefinitions(Arrays.asList("maven/mavencentral/org.example/b/1.0"), 10)
+        .exceptionally(ex -> null).join();
+
+    Optional<RemoteLicenseInformation> b =
+        client.definition("maven/mavencentral/org.example/b/1.0").join();
+    assertTrue(b.isPresent());
+    assertEquals("Apache-2.0", b.get().getSpdx());
+    assertEquals(2, server.getRequestCount());
+    assertEquals("POST", server.takeRequest().getMethod());
+    assertEquals("GET", server.takeRequest().getMethod());
+  }
+
+  @Test
+  void sameSearchIsOnlySentOnce() throws Exception {
+    server.enqueue(new MockResponse().setBody("[\"maven/mavencentral/org.example/a/1.0\"]"));
+    server.enqueue(new MockResponse().setBody(DEFINITION_A));
+
+    List<RemoteLicenseInformation> first = client.findLicenses("org.example/a/1.0").join();
+    List<RemoteLicenseInformation> second = client.findLicenses("org.example/a/1.0").join();
+
+    assertEquals(1, first.size());
+    assertEquals(first, second);
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  void onlyNotFoundMeansNoData() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(404));
+    server.enqueue(new MockResponse().setResponseCode(404));
+    assertFalse(client.definition("maven/mavencentral/org.example/a/1.0").join().isPresent());
+    assertTrue(client.search("org.example/a/1.0").join().isEmpty());
+  }
+
+  @Test
+  void errorsAreNotCached() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(429));
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setBody("[\"maven/mavencentral/org.example/a/1.0\"]"));
+    server.enqueue(new MockResponse().setBody(DEFINITION_A));
+
+    // Rate limiting and server errors are failures and not an empty result
+    CompletionException searchError = assertThrows(CompletionException.class,
+        () -> client.findLicenses("org.example/a/1.0").join());
+    assertTrue(searchError.getCause() instanceof IOException);
+    assertTrue(searchError.getCause().getMessage().contains("429"));
+    assertThrows(CompletionException.class,
+        () -> client.definition("maven/mavencentral/org.example/a/1.0").join());
+
+    // Both are requested again
+    List<RemoteLicenseInformation> found = client.findLicenses("org.example/a/1.0").join();
+    assertEquals(1, found.size());
+    assertEquals("MIT", found.get(0).getSpdx());
+    assertEquals(4, server.getRequestCount());
+  }
+}
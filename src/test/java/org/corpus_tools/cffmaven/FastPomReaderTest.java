@@ -0,0 +1,137 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FastPomReaderTest {
+
+  private static final String PARENT = String.join("\n", "<?xml version=\"1.0\"?>",
+      "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">", "<groupId>org.example</groupId>",
+      "<artifactId>parent</artifactId>", "<version>1.0</version>", "<name>Parent</name>",
+      "<properties><license.name>Apache License, Version 2.0</license.name>",
+      "<site>https://example.org</site></properties>", "<licenses><license>",
+      "<name>${license.name}</name><url>${site}/${project.artifactId}/LICENSE</url>",
+      "</license></licenses>", "<developers><developer><name>Parent Developer</name>",
+      "</developer></developers>", "</project>");
+
+  @TempDir
+  Path tempDir;
+
+  private final Map<String, File> repository = new HashMap<>();
+
+  private File pom(String coordinates, String content) throws Exception {
+    File file = tempDir.resolve(coordinates.replace(':', '_') + ".pom").toFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    repository.put(coordinates, file);
+    return file;
+  }
+
+  private static String child(String content) {
+    return String.join("\n", "<project>",
+        "<parent><groupId>org.example</groupId><artifactId>parent</artifactId>",
+        "<version>1.0</version></parent>", "<artifactId>child</artifactId>", content,
+        "</project>");
+  }
+
+  private FastPomReader reader(Properties userProperties, Set<String> profileProperties) {
+    return new FastPomReader((g, a, v) -> repository.get(g + ":" + a + ":" + v), userProperties,
+        new Properties(), profileProperties);
+  }
+
+  private Optional<PomMetadata> read(File pom) {
+    return reader(new Properties(), Collections.emptySet()).read(pom);
+  }
+
+  @Test
+  void inheritFromParent() throws Exception {
+    pom("org.example:parent:1.0", PARENT);
+    PomMetadata metadata = read(pom("org.example:child:1.0",
+        child("<developers><developer><name> Child Developer </name>"
+            + "<email><![CDATA[child@example.org]]></email></developer></developers>"
+            + "<scm><url>${site}/child</url></scm>")))
+        .get();
+
+    // The name is not inherited
+    assertEquals("child", metadata.getName());
+    assertEquals("org.example", metadata.getGroupId());
+    assertEquals("child", metadata.getArtifactId());
+    assertEquals("1.0", metadata.getVersion());
+    assertEquals(1, metadata.getLicenses().size());
+    assertEquals("Apache License, Version 2.0", metadata.getLicenses().get(0).getName());
+    assertEquals("https://example.org/child/LICENSE", metadata.getLicenses().get(0).getUrl());
+    assertEquals(1, metadata.getDevelopers().size());
+    assertEquals("Child Developer", metadata.getDevelopers().get(0).getName());
+    assertEquals("child@example.org", metadata.getDevelopers().get(0).getEmail());
+    assertEquals("https://example.org/child", metadata.getScmUrl());
+  }
+
+  @Test
+  void parentOnlyReadWhenNeeded() throws Exception {
+    PomMetadata metadata = read(pom("org.example:child:1.0",
+        child("<name>Child ${project.version}</name><licenses><license><name>MIT</name>"
+            + "</license></licenses><developers><developer><name>Child Developer</name>"
+            + "</developer></developers><scm><url>https://example.org/child</url></scm>")))
+        .get();
+    assertEquals("Child 1.0", metadata.getName());
+    assertEquals("MIT", metadata.getLicenses().get(0).getName());
+    assertNull(metadata.getLicenses().get(0).getUrl());
+  }
+
+  @Test
+  void propertyPrecedence() throws Exception {
+    pom("org.example:parent:1.0", PARENT);
+    File child = pom("org.example:child:1.0",
+        child("<properties><site>https://child.example.org</site></properties>"));
+    assertEquals("https://child.example.org/child/LICENSE",
+        read(child).get().getLicenses().get(0).getUrl());
+
+    Properties userProperties = new Properties();
+    userProperties.setProperty("site", "https://user.example.org");
+    assertEquals("https://user.example.org/child/LICENSE", reader(userProperties,
+        Collections.emptySet()).read(child).get().getLicenses().get(0).getUrl());
+  }
+
+  @Test
+  void fallbackForUnsupportedPoms() throws Exception {
+    // The parent is not available
+    File child = pom("org.example:child:1.0", child(""));
+    assertFalse(read(child).isPresent());
+
+    pom("org.example:parent:1.0", PARENT);
+    assertFalse(read(pom("org.example:child:1.0", child("<name>${unknown}</name>"))).isPresent());
+    assertFalse(read(pom("org.example:child:1.0", child("<name>${a}</name>"
+        + "<properties><a>${b}</a><b>${a}</b></properties>"))).isPresent());
+
+    // Properties can be changed by profiles
+    child = pom("org.example:child:1.0", child(""));
+    assertTrue(read(child).isPresent());
+    assertFalse(reader(new Properties(), new HashSet<>(Collections.singleton("site")))
+        .read(child).isPresent());
+    assertFalse(read(pom("org.example:child:1.0", child("<profiles><profile><properties>"
+        + "<site>https://profile.example.org</site></properties></profile></profiles>")))
+            .isPresent());
+
+    // Maven appends the artifact ID to inherited SCM URLs
+    pom("org.example:parent:1.0", PARENT.replace("</project>",
+        "<scm><url>https://example.org/parent</url></scm></project>"));
+    assertFalse(read(pom("org.example:child:2.0", child(""))).isPresent());
+
+    assertFalse(read(pom("invalid", "<project><artifactId>")).isPresent());
+  }
+}
@@ -0,0 +1,57 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FingerprintTest {
+
+  @TempDir
+  Path tempDir;
+
+  private final Artifact artifact = new DefaultArtifact("org.example", "example", "1.0",
+      "compile", "jar", null, new DefaultArtifactHandler("jar"));
+
+  private Fingerprint create(String dateReleased) {
+    Fingerprint result = new Fingerprint();
+    result.addConfiguration("skipExistingDependencies", true);
+    result.setHeader("title: example\ndate-released: " + dateReleased + "\n");
+    result.addArtifact(artifact);
+    return result;
+  }
+
+  @Test
+  void reuseReferencesOnNextDay() throws Exception {
+    File output = tempDir.resolve("CITATION.cff").toFile();
+    Files.write(output.toPath(), "references: []\n".getBytes(StandardCharsets.UTF_8));
+    File file = tempDir.resolve(".CITATION.cff.fingerprint").toFile();
+    Fingerprint first = create("2021-01-01");
+    first.setWrittenReference(artifact, "Example");
+    first.setOutput(output);
+    first.write(file);
+    Fingerprint previous = Fingerprint.read(file).get();
+
+    assertTrue(create("2021-01-01").isUpToDate(previous, output));
+
+    // Only the release date changed, so the output must be written again with the same references
+    Fingerprint nextDay = create("2021-01-02");
+    assertFalse(nextDay.isUpToDate(previous, output));
+    assertTrue(nextDay.canReuse(previous, output));
+    assertEquals(Optional.of("Example"), nextDay.getWrittenTitle(previous, artifact));
+
+    Fingerprint otherConfiguration = create("2021-01-01");
+    otherConfiguration.addConfiguration("skipExistingDependencies", false);
+    assertFalse(otherConfiguration.canReuse(previous, output));
+  }
+}
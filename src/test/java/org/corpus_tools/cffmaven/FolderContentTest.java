@@ -0,0 +1,78 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FolderContentTest {
+
+  private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+  @TempDir
+  Path root;
+
+  @BeforeEach
+  void createExistingFolder() throws Exception {
+    write("README.md", "kept by hand");
+    write("Removed_Artifact/LICENSE.txt", "license");
+    write("Artifact/LICENSE.txt", "license");
+    write("Artifact/NOTICE.txt", "old notice");
+    write("Artifact/about_files/old.html", "old");
+    Files.setLastModifiedTime(root.resolve("Artifact/LICENSE.txt"), OLD);
+  }
+
+  private void write(String file, String content) throws Exception {
+    Path path = root.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private FolderContent content() {
+    FolderContent content = new FolderContent();
+    content.add(root.resolve("Artifact/LICENSE.txt").toFile(),
+        "license".getBytes(StandardCharsets.UTF_8));
+    content.add(root.resolve("New_Artifact/MIT.txt").toFile(),
+        "MIT".getBytes(StandardCharsets.UTF_8));
+    return content;
+  }
+
+  @Test
+  void removeStaleArtifactFolders() throws Exception {
+    FolderContent content = content();
+    assertTrue(content.hasFilesIn(root.resolve("Artifact").toFile()));
+    assertTrue(content.hasFilesIn(root.toFile()));
+    assertFalse(content.hasFilesIn(root.resolve("Removed_Artifact").toFile()));
+
+    content.sync(root.toFile(), true, new SystemStreamLog());
+
+    assertTrue(Files.isRegularFile(root.resolve("README.md")));
+    assertFalse(Files.exists(root.resolve("Removed_Artifact")));
+    assertFalse(Files.exists(root.resolve("Artifact/NOTICE.txt")));
+    assertFalse(Files.exists(root.resolve("Artifact/about_files")));
+    // Unchanged files are not written again
+    assertEquals(OLD, Files.getLastModifiedTime(root.resolve("Artifact/LICENSE.txt")));
+    assertArrayEquals("MIT".getBytes(StandardCharsets.UTF_8),
+        Files.readAllBytes(root.resolve("New_Artifact/MIT.txt")));
+  }
+
+  @Test
+  void keepStaleFilesIfNotDeleting() throws Exception {
+    content().sync(root.toFile(), false, new SystemStreamLog());
+
+    for (String file : new String[] {"README.md", "Removed_Artifact/LICENSE.txt",
+        "Artifact/NOTICE.txt", "Artifact/about_files/old.html", "New_Artifact/MIT.txt"}) {
+      assertTrue(new File(root.toFile(), file).isFile(), file);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JarInspectorTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void indexContainsPomPropertiesAndThirdPartyFiles() throws Exception {
+    File jar = tempDir.resolve("example.jar").toFile();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+      addEntry(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n");
+      addEntry(out, "META-INF/maven/org.example/example/pom.properties",
+          "groupId=org.example\nartifactId=example\nversion=1.0\n");
+      addEntry(out, "META-INF/LICENSE.txt", "License text");
+      addEntry(out, "about_files/NOTICE", "Notice text");
+      addEntry(out, "org/example/Example.class", "");
+      addEntry(out, "META-INF/../LICENSE", "Outside");
+    }
+
+    JarInspector inspector = new JarInspector();
+    JarIndex index = inspector.inspect(jar);
+
+    assertEquals(1, index.getPomProperties().size());
+    assertEquals("org.example", index.getPomProperties().get(0).getProperty("groupId"));
+    assertEquals(2, index.getThirdPartyFiles().size());
+    assertEquals("LICENSE.txt", index.getThirdPartyFiles().get(0).getPath());
+    assertEquals("META-INF/LICENSE.txt", index.getThirdPartyFiles().get(0).getName());
+    // The content is only read on demand
+    try (ZipFile zip = new ZipFile(jar)) {
+      assertArrayEquals("License text".getBytes(StandardCharsets.UTF_8),
+          index.getThirdPartyFiles().get(0).read(zip));
+    }
+    assertEquals("about_files/NOTICE", index.getThirdPartyFiles().get(1).getPath());
+
+    // The file is only read once
+    assertSame(index, inspector.inspect(jar));
+  }
+
+  private static void addEntry(ZipOutputStream out, String name, String content)
+      throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
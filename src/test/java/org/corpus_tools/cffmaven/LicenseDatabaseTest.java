@@ -0,0 +1,41 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LicenseDatabaseTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void writeAndRead() throws Exception {
+    LicenseDatabase database = new LicenseDatabase();
+    RemoteLicenseInformation mit = new RemoteLicenseInformation();
+    mit.setSpdx("MIT");
+    mit.setAuthors(Arrays.asList("Jane Doe", "John \"JD\" Doe"));
+    mit.setScore(87);
+    database.putLicense("org.example:a:jar:1.0", mit);
+    database.putLicense("org.example:b:jar:1.0", RemoteLicenseInformation.notFound());
+    database.putLicenseText("https://example.com/LICENSE.txt", "License\ntext\n");
+
+    File file = tempDir.resolve("licenses.json").toFile();
+    database.write(file);
+    LicenseDatabase read = LicenseDatabase.read(file);
+
+    RemoteLicenseInformation a = read.getLicense("org.example:a:jar:1.0");
+    assertEquals("MIT", a.getSpdx());
+    assertEquals(Arrays.asList("Jane Doe", "John \"JD\" Doe"), a.getAuthors());
+    assertEquals(87, a.getScore());
+    assertFalse(read.getLicense("org.example:b:jar:1.0").isFound());
+    assertNull(read.getLicense("org.example:c:jar:1.0"));
+    assertEquals("License\ntext\n", read.getLicenseText("https://example.com/LICENSE.txt"));
+  }
+}
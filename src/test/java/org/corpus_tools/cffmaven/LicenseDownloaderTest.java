@@ -0,0 +1,75 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LicenseDownloaderTest {
+
+  private MockWebServer server;
+  private CacheManager cacheManager;
+  private Cache<String, String> cache;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if ("/missing.txt".equals(request.getPath())) {
+          return new MockResponse().setResponseCode(404);
+        }
+        return new MockResponse().setBody("License text of " + request.getPath());
+      }
+    });
+    server.start();
+    cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build(true);
+    cache = cacheManager.createCache("licenses", CacheConfigurationBuilder
+        .newCacheConfigurationBuilder(String.class, String.class, ResourcePoolsBuilder.heap(10)));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    cacheManager.close();
+    server.shutdown();
+  }
+
+  @Test
+  void downloadEachUrlOnce() {
+    String apache = server.url("/Apache-2.0.txt").toString();
+    String mit = server.url("/MIT.txt").toString();
+    String missing = server.url("/missing.txt").toString();
+    LicenseDownloader downloader = new LicenseDownloader(new OkHttpClient(), cache);
+
+    Map<String, Optional<String>> result = downloader
+        .download(Arrays.asList(apache, mit, apache, missing, apache), new SystemStreamLog());
+
+    assertEquals(3, result.size());
+    assertEquals(3, server.getRequestCount());
+    assertEquals("License text of /Apache-2.0.txt", result.get(apache).get());
+    assertEquals("License text of /MIT.txt", result.get(mit).get());
+    assertFalse(result.get(missing).isPresent());
+
+    // Successful downloads are answered from the cache
+    result = downloader.download(Arrays.asList(apache, mit), new SystemStreamLog());
+    assertEquals(3, server.getRequestCount());
+    assertEquals("License text of /MIT.txt", result.get(mit).get());
+  }
+}
@@ -0,0 +1,91 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LicenseTextStoreTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void bundledLicenseTexts() throws Exception {
+    try (LicenseTextStore store = new LicenseTextStore()) {
+      assertTrue(new String(store.get("Apache-2.0").get(), StandardCharsets.UTF_8)
+          .contains("Apache License"));
+      assertTrue(store.get("MIT").isPresent());
+      // All licenses of the SPDX license list are available without network access
+      for (String spdxId : Arrays.asList("EPL-1.0", "EPL-2.0", "BSD-2-Clause", "BSD-3-Clause",
+          "LGPL-2.1", "LGPL-2.1-only", "CDDL-1.0", "GPL-2.0-with-classpath-exception")) {
+        assertTrue(store.get(spdxId).isPresent(), spdxId);
+      }
+      assertTrue(new String(store.get("EPL-2.0").get(), StandardCharsets.UTF_8)
+          .startsWith("Eclipse Public License - v 2.0"));
+      assertFalse(store.get("Unknown-1.0").isPresent());
+      assertFalse(store.get("../spdx/MIT").isPresent());
+    }
+  }
+
+  /**
+   * The bundled texts must be the same as the ones in the "text" folder of the SPDX license list
+   * data, which were downloaded into the third party folder of this project.
+   */
+  @Test
+  void bundledLicenseTextsMatchLicenseListData() throws Exception {
+    try (LicenseTextStore store = new LicenseTextStore()) {
+      for (String spdxId : Arrays.asList("Apache-2.0", "MIT")) {
+        List<Path> downloaded;
+        try (Stream<Path> files = Files.walk(Paths.get("THIRD-PARTY"))) {
+          downloaded = files.filter(f -> f.getFileName().toString().equals(spdxId + ".txt"))
+              .collect(Collectors.toList());
+        }
+        assertFalse(downloaded.isEmpty());
+        for (Path file : downloaded) {
+          assertArrayEquals(Files.readAllBytes(file), store.get(spdxId).get(), file.toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  void archiveLicenseTexts() throws Exception {
+    File zip = tempDir.resolve("license-list-data.zip").toFile();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      addEntry(out, "license-list-data-3.20/template/MIT.txt", "MIT template");
+      addEntry(out, "license-list-data-3.20/text/MIT.txt", "MIT text");
+      addEntry(out, "license-list-data-3.20/text/0BSD.txt", "0BSD text");
+      addEntry(out, "license-list-data-3.20/json/MIT.json", "{}");
+    }
+
+    try (LicenseTextStore store = new LicenseTextStore(zip)) {
+      assertArrayEquals("MIT text".getBytes(StandardCharsets.UTF_8), store.get("MIT").get());
+      assertArrayEquals("0BSD text".getBytes(StandardCharsets.UTF_8), store.get("0BSD").get());
+      // Licenses that are not in the archive are taken from the bundled texts
+      assertTrue(store.get("Apache-2.0").isPresent());
+    }
+  }
+
+  private static void addEntry(ZipOutputStream out, String name, String content)
+      throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
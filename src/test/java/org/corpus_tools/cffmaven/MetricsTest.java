@@ -0,0 +1,53 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MetricsTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void slowestArtifactsAndReport() throws Exception {
+    Metrics metrics = new Metrics();
+    metrics.record("project-build", TimeUnit.MILLISECONDS.toNanos(5));
+    metrics.record("project-build", TimeUnit.MILLISECONDS.toNanos(2500));
+    metrics.recordArtifact("org.example:a:jar:1.0", TimeUnit.MILLISECONDS.toNanos(10));
+    metrics.recordArtifact("org.example:b:jar:1.0", TimeUnit.MILLISECONDS.toNanos(30));
+    metrics.recordArtifact("org.example:a:jar:1.0", TimeUnit.MILLISECONDS.toNanos(30));
+    metrics.recordArtifact("org.example:c:jar:1.0", TimeUnit.MILLISECONDS.toNanos(1));
+    metrics.increment("http.calls");
+    metrics.add("http.calls", 2);
+
+    List<Map.Entry<String, Long>> slowest = metrics.getSlowestArtifacts(2);
+    assertEquals(2, slowest.size());
+    assertEquals("org.example:a:jar:1.0", slowest.get(0).getKey());
+    assertEquals("org.example:b:jar:1.0", slowest.get(1).getKey());
+    assertEquals(3, metrics.getCounter("http.calls"));
+
+    File report = tempDir.resolve("metrics.json").toFile();
+    metrics.writeJson(report, "create", 10);
+    JSONObject json =
+        new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8));
+    JSONObject phase = json.getJSONObject("phases").getJSONObject("project-build");
+    assertEquals(2, phase.getLong("count"));
+    assertEquals(2505, phase.getLong("totalMillis"));
+    assertEquals(1, phase.getJSONObject("histogram").getLong("<10ms"));
+    assertEquals(1, phase.getJSONObject("histogram").getLong("<10s"));
+    assertEquals(3, json.getJSONArray("slowestArtifacts").length());
+    assertEquals(3, json.getJSONObject("counters").getLong("http.calls"));
+    assertTrue(json.getLong("peakHeapBytes") > 0);
+  }
+}
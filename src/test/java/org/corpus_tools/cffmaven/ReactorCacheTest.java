@@ -0,0 +1,42 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ReactorCacheTest {
+
+  @Test
+  void referencesAreNotShared() {
+    Map<String, Object> author = new LinkedHashMap<>();
+    author.put("name", "The Team");
+    List<Object> authors = new ArrayList<>();
+    authors.add(author);
+    Map<String, Object> reference = new LinkedHashMap<>();
+    reference.put("title", "example");
+    reference.put("authors", authors);
+
+    ReactorCache cache = new ReactorCache();
+    cache.putReference("config", "org.example:example:jar:1.0", reference);
+    author.put("email", "team@example.org");
+    reference.put("version", "1.0");
+
+    Map<String, Object> first = cache.getReference("config", "org.example:example:jar:1.0");
+    assertEquals(2, first.size());
+    assertEquals(1, ((Map<?, ?>) ((List<?>) first.get("authors")).get(0)).size());
+
+    // Changes of one module are not visible to the next one
+    first.put("date-released", "2021-01-01");
+    ((List<?>) first.get("authors")).clear();
+    Map<String, Object> second = cache.getReference("config", "org.example:example:jar:1.0");
+    assertEquals(2, second.size());
+    assertEquals(1, ((List<?>) second.get("authors")).size());
+
+    assertNull(cache.getReference("other", "org.example:example:jar:1.0"));
+  }
+}
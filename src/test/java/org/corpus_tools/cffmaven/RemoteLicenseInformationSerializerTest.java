@@ -0,0 +1,64 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class RemoteLicenseInformationSerializerTest {
+
+  private final RemoteLicenseInformationSerializer serializer =
+      new RemoteLicenseInformationSerializer(getClass().getClassLoader());
+
+  @Test
+  void roundTrip() throws Exception {
+    RemoteLicenseInformation license = new RemoteLicenseInformation();
+    license.setSpdx("Apache-2.0");
+    license.setScore(87);
+    license.setAuthors(Arrays.asList("Jane Doe", "John Doe", "Jane Doe", "Zoë"));
+
+    ByteBuffer binary = serializer.serialize(license);
+    assertTrue(serializer.equals(license, binary.duplicate()));
+    RemoteLicenseInformation read = serializer.read(binary);
+
+    // Common identifiers are shared instead of creating new strings
+    assertSame(KnownLicenses.SPDX_APACHE20, read.getSpdx());
+    assertEquals(87, read.getScore());
+    assertEquals(Arrays.asList("Jane Doe", "John Doe", "Jane Doe", "Zoë"), read.getAuthors());
+  }
+
+  @Test
+  void uncommonIdentifierAndNotFound() throws Exception {
+    RemoteLicenseInformation license = new RemoteLicenseInformation();
+    license.setSpdx("LicenseRef-Custom");
+    RemoteLicenseInformation read = serializer.read(serializer.serialize(license));
+    assertEquals("LicenseRef-Custom", read.getSpdx());
+    assertEquals(Collections.emptyList(), read.getAuthors());
+
+    read = serializer.read(serializer.serialize(RemoteLicenseInformation.notFound()));
+    assertFalse(read.isFound());
+    assertNull(read.getSpdx());
+  }
+
+  @Test
+  void smallerThanJavaSerialization() throws Exception {
+    RemoteLicenseInformation license = new RemoteLicenseInformation();
+    license.setSpdx("MIT");
+    license.setScore(50);
+    license.setAuthors(Arrays.asList("Jane Doe"));
+
+    ByteArrayOutputStream java = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(java)) {
+      out.writeObject(license);
+    }
+    assertTrue(serializer.serialize(license).remaining() * 4 < java.size());
+  }
+}
@@ -0,0 +1,60 @@
+package org.corpus_tools.cffmaven;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import org.ehcache.StateTransitionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedCacheManagerTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void closeWhenNotUsedAnymore() {
+    File directory = tempDir.resolve("shared").toFile();
+    SharedCacheManager first = new SharedCacheManager(directory);
+    first.acquire();
+    first.acquire();
+
+    SharedCacheManager other = new SharedCacheManager(directory);
+    assertThrows(StateTransitionException.class, other::acquire);
+
+    first.release();
+    assertThrows(StateTransitionException.class, other::acquire);
+    first.release();
+    // The directory is not locked anymore
+    other.acquire();
+    other.release();
+  }
+
+  @Test
+  void keepOpenUntilSessionEnd() {
+    File directory = tempDir.resolve("shared").toFile();
+    SharedCacheManager manager = new SharedCacheManager(directory);
+    assertTrue(manager.keepOpenUntilSessionEnd());
+    assertFalse(manager.keepOpenUntilSessionEnd());
+    manager.acquire();
+    manager.release();
+
+    SharedCacheManager other = new SharedCacheManager(directory);
+    assertThrows(StateTransitionException.class, other::acquire);
+    manager.sessionEnded();
+    other.acquire();
+    other.release();
+  }
+
+  @Test
+  void deleteTemporaryDirectory() throws Exception {
+    SharedCacheManager manager = SharedCacheManager.createTemporary();
+    manager.acquire();
+    assertTrue(manager.getDirectory().isDirectory());
+    manager.release();
+    assertFalse(manager.getDirectory().exists());
+  }
+}